@@ -0,0 +1,123 @@
+package com.kyuubisoft.api;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of chat content extraction: cached method handles versus
+ * the previous reflective lookups on every call.
+ *
+ * Run with: ./gradlew jmh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParamValueExtractorBenchmark {
+
+    /**
+     * Wrapper whose toString() is not the value, like the server's StringParamValue
+     */
+    public static class StringParamValue {
+        private final String value;
+
+        public StringParamValue(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "StringParamValue@" + Integer.toHexString(System.identityHashCode(this));
+        }
+    }
+
+    /**
+     * Wrapper that only exposes a private 'value' field
+     */
+    public static class FieldOnlyValue {
+        private final String value;
+
+        public FieldOnlyValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "FieldOnlyValue@" + Integer.toHexString(System.identityHashCode(this));
+        }
+    }
+
+    @Param({"getter", "field"})
+    public String kind;
+
+    private Object content;
+
+    @Setup
+    public void setup() {
+        content = kind.equals("getter")
+                ? new StringParamValue("hello from the benchmark")
+                : new FieldOnlyValue("hello from the benchmark");
+    }
+
+    @Benchmark
+    public String cachedHandles() {
+        return ParamValueExtractor.extract(content);
+    }
+
+    @Benchmark
+    public String reflection() {
+        return extractReflectively(content);
+    }
+
+    /**
+     * The previous implementation, resolving everything on each call
+     */
+    private static String extractReflectively(Object obj) {
+        if (obj == null) return "";
+        if (obj instanceof String) return (String) obj;
+
+        String strVal = obj.toString();
+        if (!strVal.contains("@") && !strVal.contains("StringParamValue")) {
+            return strVal;
+        }
+
+        String[] methodNames = {"getValue", "getString", "get", "value", "getStringValue", "getContent", "getText"};
+        for (String methodName : methodNames) {
+            try {
+                var method = obj.getClass().getMethod(methodName);
+                Object result = method.invoke(obj);
+                if (result != null) {
+                    if (result instanceof String) {
+                        return (String) result;
+                    }
+                    String resultStr = result.toString();
+                    if (!resultStr.contains("@")) {
+                        return resultStr;
+                    }
+                }
+            } catch (Exception ignored) {
+                // Method doesn't exist or failed, try next
+            }
+        }
+
+        try {
+            var field = obj.getClass().getDeclaredField("value");
+            field.setAccessible(true);
+            Object value = field.get(obj);
+            if (value != null) {
+                return value.toString();
+            }
+        } catch (Exception ignored) {
+            // Field doesn't exist or not accessible
+        }
+
+        return strVal.contains("@") ? "" : strVal;
+    }
+}
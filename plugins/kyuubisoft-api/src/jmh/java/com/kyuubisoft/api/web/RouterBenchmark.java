@@ -0,0 +1,89 @@
+package com.kyuubisoft.api.web;
+
+import com.kyuubisoft.api.handlers.ChatHandler;
+import com.kyuubisoft.api.handlers.PlayersHandler;
+import com.kyuubisoft.api.handlers.PlaytimeHandler;
+import com.kyuubisoft.api.handlers.ServerHandler;
+import com.kyuubisoft.api.handlers.WorldsHandler;
+import com.kyuubisoft.api.state.ActionDispatcher;
+import com.kyuubisoft.api.state.PlayerIndex;
+import com.kyuubisoft.api.state.SnapshotEngine;
+import com.kyuubisoft.api.state.WorldIndex;
+import com.kyuubisoft.api.storage.ChatHistory;
+import com.kyuubisoft.api.tracking.HeatmapAggregator;
+import com.kyuubisoft.api.tracking.PositionHistory;
+import com.kyuubisoft.api.tracking.SpatialIndex;
+import io.netty.handler.codec.http.HttpMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the compiled trie router with the previous sequential regex chain.
+ *
+ * Run with: ./gradlew jmh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    // Route patterns of the regex chain, in the order it tried them
+    private static final Pattern[] GET_PATTERNS = {
+            Pattern.compile("^/api/players(?:/([\\w-]+))?$"),
+            Pattern.compile("^/api/players/([\\w-]+)/details$"),
+            Pattern.compile("^/api/players/([\\w-]+)/inventory$"),
+            Pattern.compile("^/api/players/([\\w-]+)/appearance$"),
+            Pattern.compile("^/api/worlds(?:/([\\w-]+))?$"),
+            Pattern.compile("^/api/worlds/([\\w-]+)/stats$"),
+            Pattern.compile("^/api/server/info$"),
+            Pattern.compile("^/api/server/performance$"),
+            Pattern.compile("^/api/server/memory$"),
+    };
+
+    @Param({
+            "/api/players",
+            "/api/players/Steve/appearance",
+            "/api/server/memory",
+            "/api/unknown/endpoint"
+    })
+    public String path;
+
+    private ApiRouter router;
+
+    @Setup
+    public void setup() {
+        PlayerIndex playerIndex = new PlayerIndex();
+        SnapshotEngine snapshotEngine = new SnapshotEngine(playerIndex, new WorldIndex(), 250, 30_000);
+        PlayersHandler playersHandler = new PlayersHandler(playerIndex, snapshotEngine, new PositionHistory(2),
+                new ActionDispatcher(5000), null, null);
+        router = ApiRoutes.create(playersHandler,
+                new WorldsHandler(snapshotEngine, new SpatialIndex(32),
+                        new HeatmapAggregator(5000, 16384)), new ServerHandler(snapshotEngine),
+                new PlaytimeHandler(null),
+                new ChatHandler(new ChatHistory(16, null, 1, 1)), null, null, 64, 256,
+                new AppearanceCache(playersHandler), 3600);
+    }
+
+    @Benchmark
+    public Object trieRouter() {
+        ApiRouter.Match match = router.match(HttpMethod.GET, path);
+        return match != null ? match.param("name") : null;
+    }
+
+    @Benchmark
+    public Object regexChain() {
+        for (Pattern pattern : GET_PATTERNS) {
+            Matcher matcher = pattern.matcher(path);
+            if (matcher.matches()) {
+                return matcher.groupCount() > 0 ? matcher.group(1) : pattern;
+            }
+        }
+        return null;
+    }
+}
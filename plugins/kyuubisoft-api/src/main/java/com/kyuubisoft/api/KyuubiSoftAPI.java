@@ -6,10 +6,31 @@ import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
 import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.kyuubisoft.api.state.ActionDispatcher;
+import com.kyuubisoft.api.state.PlayerIndex;
+import com.kyuubisoft.api.state.SnapshotEngine;
+import com.kyuubisoft.api.state.StateReconciler;
+import com.kyuubisoft.api.state.WorldIndex;
+import com.kyuubisoft.api.handlers.ChatHandler;
+import com.kyuubisoft.api.handlers.PlayersHandler;
+import com.kyuubisoft.api.handlers.PlaytimeHandler;
+import com.kyuubisoft.api.handlers.ServerHandler;
+import com.kyuubisoft.api.handlers.WorldsHandler;
+import com.kyuubisoft.api.storage.ChatHistory;
+import com.kyuubisoft.api.storage.PlayerStore;
+import com.kyuubisoft.api.storage.SessionLog;
+import com.kyuubisoft.api.tracking.HeatmapAggregator;
+import com.kyuubisoft.api.tracking.InventoryTracker;
+import com.kyuubisoft.api.tracking.PositionHistory;
+import com.kyuubisoft.api.tracking.SpatialIndex;
 import com.kyuubisoft.api.web.WebServer;
 import com.kyuubisoft.api.websocket.EventBroadcaster;
+import com.kyuubisoft.api.websocket.PositionStream;
 import com.kyuubisoft.api.config.ApiConfig;
 
+import java.io.IOException;
 import java.util.logging.Logger;
 
 /**
@@ -27,6 +48,20 @@ public class KyuubiSoftAPI extends JavaPlugin {
 
     private WebServer webServer;
     private EventBroadcaster eventBroadcaster;
+    private PlayerIndex playerIndex;
+    private WorldIndex worldIndex;
+    private StateReconciler stateReconciler;
+    private SnapshotEngine snapshotEngine;
+    private PositionHistory positionHistory;
+    private SpatialIndex spatialIndex;
+    private HeatmapAggregator heatmaps;
+    private PositionStream positionStream;
+    private SessionLog sessionLog;
+    private PlayerStore playerStore;
+    private PlayersHandler playersHandler;
+    private ChatHistory chatHistory;
+    private ActionDispatcher actionDispatcher;
+    private InventoryTracker inventoryTracker;
     private ApiConfig config;
 
     public KyuubiSoftAPI(JavaPluginInit init) {
@@ -52,9 +87,97 @@ public class KyuubiSoftAPI extends JavaPlugin {
         // Initialize event broadcaster for WebSocket
         eventBroadcaster = new EventBroadcaster();
 
+        // Indexes of online players and world membership, kept current by the
+        // connect/disconnect listeners and checked periodically against the Universe
+        playerIndex = new PlayerIndex();
+        playerIndex.seed(Universe.get());
+        worldIndex = new WorldIndex();
+        worldIndex.reconcile(Universe.get());
+
+        // Immutable view of players and worlds sampled on the world threads; all GET handlers read it
+        snapshotEngine = new SnapshotEngine(playerIndex, worldIndex,
+                config.getSnapshotIntervalMillis(), config.getSnapshotIdleSeconds() * 1000L);
+        // Recent positions per player, recorded from every snapshot
+        positionHistory = new PositionHistory(config.getTrailCapacity());
+        if (config.getTrailCapacity() > 0) {
+            snapshotEngine.addListener(positionHistory::record, true);
+        }
+        // Per-world grid of player positions for area queries
+        spatialIndex = new SpatialIndex(config.getSpatialCellSize());
+        snapshotEngine.addListener(spatialIndex::update, false);
+        // Per-chunk player density per world
+        heatmaps = new HeatmapAggregator(config.getHeatmapIntervalSeconds() * 1000L, config.getHeatmapMaxChunks());
+        if (config.getHeatmapIntervalSeconds() > 0) {
+            snapshotEngine.addListener(heatmaps::record, true);
+        }
+        snapshotEngine.start();
+
+        // Delta-encoded live positions for WebSocket subscribers
+        if (config.getPositionStreamIntervalMillis() > 0) {
+            positionStream = new PositionStream(snapshotEngine, config.getPositionStreamIntervalMillis(),
+                    config.getPositionStreamPrecision(), config.getPositionStreamThreshold(),
+                    config.getPositionStreamKeyframeSeconds() * 1000L);
+            positionStream.start();
+        }
+
+        // Sessions and playtime, persisted in an append-only log
+        if (config.isSessionLogEnabled()) {
+            sessionLog = new SessionLog(config.getDataPath().resolve("sessions"),
+                    config.getSessionSegmentKb() * 1024, config.getSessionRetentionDays());
+            try {
+                sessionLog.start(config.getSessionCompactMinutes());
+                long now = System.currentTimeMillis();
+                for (PlayerRef player : playerIndex.players()) {
+                    sessionLog.open(player.getUuid(), player.getUsername(), now);
+                }
+            } catch (IOException e) {
+                LOGGER.warning("Session log unavailable: " + e.getMessage());
+                sessionLog = null;
+            }
+        }
+
+        // Searchable chat history, persisted in rotated segments
+        chatHistory = new ChatHistory(config.getChatHistoryCapacity(),
+                config.isChatPersistEnabled() ? config.getDataPath().resolve("chat") : null,
+                config.getChatSegmentMessages(), config.getChatRetentionDays());
+        try {
+            chatHistory.start(config.getChatFlushSeconds());
+        } catch (IOException e) {
+            LOGGER.warning("Chat history not persisted: " + e.getMessage());
+        }
+
+        // Player actions and inventory reads run on the world threads through this
+        actionDispatcher = new ActionDispatcher(config.getActionTimeoutMillis());
+
+        // Versioned inventory captures; changes are pushed as inventory_delta events
+        if (config.getInventoryIntervalMillis() > 0) {
+            inventoryTracker = new InventoryTracker(playerIndex, actionDispatcher,
+                    eventBroadcaster::broadcastInventoryDelta,
+                    config.getInventoryIntervalMillis(), config.getInventoryHistory());
+            inventoryTracker.start();
+        }
+
+        // Last-known state of players, for details of offline players
+        if (config.isPlayerStoreEnabled()) {
+            playerStore = new PlayerStore(config.getDataPath().resolve("players"));
+        }
+        playersHandler = new PlayersHandler(playerIndex, snapshotEngine, positionHistory, actionDispatcher,
+                inventoryTracker, playerStore);
+        if (playerStore != null) {
+            try {
+                playerStore.start(config.getPlayerStoreCheckpointMinutes(), playersHandler::lastKnownOnline);
+            } catch (IOException e) {
+                LOGGER.warning("Player store unavailable: " + e.getMessage());
+                playerStore = null;
+            }
+        }
+
         // Start HTTP/WebSocket server
         int port = config.getHttpPort();
-        webServer = new WebServer(port, eventBroadcaster);
+        webServer = new WebServer(config, eventBroadcaster, playersHandler,
+                new WorldsHandler(snapshotEngine, spatialIndex, heatmaps),
+                new ServerHandler(snapshotEngine), new PlaytimeHandler(sessionLog), new ChatHandler(chatHistory),
+                positionStream);
 
         try {
             webServer.start();
@@ -69,6 +192,10 @@ public class KyuubiSoftAPI extends JavaPlugin {
             e.printStackTrace();
         }
 
+        stateReconciler = new StateReconciler(playerIndex, worldIndex,
+                config.getIndexReconcileSeconds(), this::refreshPlayerViews);
+        stateReconciler.start();
+
         // Register event listeners
         registerEvents();
     }
@@ -81,6 +208,13 @@ public class KyuubiSoftAPI extends JavaPlugin {
             String playerName = event.getPlayerRef().getUsername();
             String uuid = event.getPlayerRef().getUuid().toString();
             LOGGER.info("Player connected: " + playerName);
+            playerIndex.add(event.getPlayerRef());
+            worldIndex.update(Universe.get(), event.getPlayerRef());
+            refreshPlayerViews();
+            webServer.invalidateAppearance(event.getPlayerRef().getUuid());
+            if (sessionLog != null) {
+                sessionLog.open(event.getPlayerRef().getUuid(), playerName, System.currentTimeMillis());
+            }
             eventBroadcaster.broadcastPlayerJoin(playerName, uuid);
         });
 
@@ -89,6 +223,20 @@ public class KyuubiSoftAPI extends JavaPlugin {
             String playerName = event.getPlayerRef().getUsername();
             String uuid = event.getPlayerRef().getUuid().toString();
             LOGGER.info("Player disconnected: " + playerName);
+            if (playerStore != null) {
+                // Before the inventory and the snapshot entry are dropped
+                playerStore.record(playersHandler.lastKnown(event.getPlayerRef(), System.currentTimeMillis()));
+            }
+            playerIndex.remove(event.getPlayerRef());
+            worldIndex.remove(event.getPlayerRef());
+            refreshPlayerViews();
+            webServer.invalidateAppearance(event.getPlayerRef().getUuid());
+            if (sessionLog != null) {
+                sessionLog.close(event.getPlayerRef().getUuid(), System.currentTimeMillis());
+            }
+            if (inventoryTracker != null) {
+                inventoryTracker.remove(event.getPlayerRef().getUuid());
+            }
             eventBroadcaster.broadcastPlayerLeave(playerName, uuid);
         });
 
@@ -111,9 +259,10 @@ public class KyuubiSoftAPI extends JavaPlugin {
                     // Get message content
                     Object content = event.getContent();
                     if (content != null) {
-                        message = extractStringFromParamValue(content);
+                        message = ParamValueExtractor.extract(content);
                     }
 
+                    chatHistory.add(playerName, uuid, message, System.currentTimeMillis());
                     eventBroadcaster.broadcastChat(playerName, uuid, message);
                 } catch (Exception e) {
                     LOGGER.warning("[Chat] Error processing chat event: " + e.getMessage());
@@ -125,66 +274,42 @@ public class KyuubiSoftAPI extends JavaPlugin {
     }
 
     /**
-     * Extract string value from StringParamValue or similar wrapper objects.
-     * Tries multiple methods via reflection to get the actual string.
+     * Re-sample the snapshot after the set of players changed, then drop cached
+     * responses built from the old one
      */
-    private String extractStringFromParamValue(Object obj) {
-        if (obj == null) return "";
-
-        // If it's already a string, return it
-        if (obj instanceof String) return (String) obj;
-
-        String strVal = obj.toString();
-
-        // If toString() returns a clean value (no @ sign), use it
-        if (!strVal.contains("@") && !strVal.contains("StringParamValue")) {
-            return strVal;
-        }
-
-        // Try various getter methods via reflection
-        String[] methodNames = {"getValue", "getString", "get", "value", "getStringValue", "getContent", "getText"};
-
-        for (String methodName : methodNames) {
-            try {
-                var method = obj.getClass().getMethod(methodName);
-                Object result = method.invoke(obj);
-                if (result != null) {
-                    if (result instanceof String) {
-                        return (String) result;
-                    }
-                    String resultStr = result.toString();
-                    if (!resultStr.contains("@")) {
-                        return resultStr;
-                    }
-                }
-            } catch (Exception ignored) {
-                // Method doesn't exist or failed, try next
-            }
-        }
-
-        // Try to access 'value' field directly
-        try {
-            var field = obj.getClass().getDeclaredField("value");
-            field.setAccessible(true);
-            Object value = field.get(obj);
-            if (value != null) {
-                return value.toString();
-            }
-        } catch (Exception ignored) {
-            // Field doesn't exist or not accessible
-        }
-
-        // Return raw toString as fallback
-        return strVal.contains("@") ? "" : strVal;
+    private void refreshPlayerViews() {
+        snapshotEngine.captureSoon(webServer::invalidatePlayerViews);
     }
 
     @Override
     protected void shutdown() {
         LOGGER.info("Shutting down KyuubiSoft API...");
 
+        if (stateReconciler != null) {
+            stateReconciler.stop();
+        }
+        if (positionStream != null) {
+            positionStream.stop();
+        }
+        if (inventoryTracker != null) {
+            inventoryTracker.stop();
+        }
+        if (playerStore != null) {
+            playerStore.stop();
+        }
+        if (snapshotEngine != null) {
+            snapshotEngine.stop();
+        }
+
         if (webServer != null) {
             webServer.stop();
         }
+        if (sessionLog != null) {
+            sessionLog.stop();
+        }
+        if (chatHistory != null) {
+            chatHistory.stop();
+        }
 
         LOGGER.info("KyuubiSoft API stopped.");
     }
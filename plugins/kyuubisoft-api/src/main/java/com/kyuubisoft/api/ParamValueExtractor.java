@@ -0,0 +1,136 @@
+package com.kyuubisoft.api;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts the string of a StringParamValue or similar wrapper, e.g. chat content.
+ *
+ * Which getters and fields a class offers is resolved by reflection once per
+ * class and cached as method handles in a ClassValue, so each message costs a
+ * toString() and usually one direct handle call instead of several reflective
+ * lookups.
+ */
+public final class ParamValueExtractor {
+
+    // Getter names tried in this order
+    private static final String[] METHOD_NAMES = {
+            "getValue", "getString", "get", "value", "getStringValue", "getContent", "getText"
+    };
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<Accessors> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Accessors computeValue(Class<?> type) {
+            return Accessors.resolve(type);
+        }
+    };
+
+    private ParamValueExtractor() {
+    }
+
+    /**
+     * Extract string value from StringParamValue or similar wrapper objects.
+     */
+    public static String extract(Object obj) {
+        if (obj == null) return "";
+
+        // If it's already a string, return it
+        if (obj instanceof String) return (String) obj;
+
+        String strVal = obj.toString();
+
+        // If toString() returns a clean value (no @ sign), use it
+        if (!strVal.contains("@") && !strVal.contains("StringParamValue")) {
+            return strVal;
+        }
+
+        Accessors accessors = ACCESSORS.get(obj.getClass());
+        for (MethodHandle getter : accessors.getters) {
+            try {
+                Object result = (Object) getter.invokeExact(obj);
+                if (result != null) {
+                    if (result instanceof String) {
+                        return (String) result;
+                    }
+                    String resultStr = result.toString();
+                    if (!resultStr.contains("@")) {
+                        return resultStr;
+                    }
+                }
+            } catch (Throwable ignored) {
+                // Getter failed, try next
+            }
+        }
+
+        // 'value' field
+        if (accessors.valueField != null) {
+            try {
+                Object value = (Object) accessors.valueField.invokeExact(obj);
+                if (value != null) {
+                    return value.toString();
+                }
+            } catch (Throwable ignored) {
+                // Field not readable
+            }
+        }
+
+        // Return raw toString as fallback
+        return strVal.contains("@") ? "" : strVal;
+    }
+
+    /**
+     * Getters and 'value' field of one class, as (Object)Object handles
+     */
+    private static final class Accessors {
+        final MethodHandle[] getters;
+        final MethodHandle valueField;
+
+        private Accessors(MethodHandle[] getters, MethodHandle valueField) {
+            this.getters = getters;
+            this.valueField = valueField;
+        }
+
+        static Accessors resolve(Class<?> type) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            List<MethodHandle> getters = new ArrayList<>();
+            for (String methodName : METHOD_NAMES) {
+                try {
+                    Method method = type.getMethod(methodName);
+                    if (method.getReturnType() == void.class) {
+                        continue;
+                    }
+                    method.trySetAccessible();
+                    getters.add(adapt(lookup.unreflect(method), Modifier.isStatic(method.getModifiers())));
+                } catch (ReflectiveOperationException | RuntimeException ignored) {
+                    // Method doesn't exist or is not accessible
+                }
+            }
+
+            MethodHandle valueField = null;
+            try {
+                Field field = type.getDeclaredField("value");
+                field.setAccessible(true);
+                valueField = adapt(lookup.unreflectGetter(field), Modifier.isStatic(field.getModifiers()));
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Field doesn't exist or not accessible
+            }
+
+            return new Accessors(getters.toArray(new MethodHandle[0]), valueField);
+        }
+
+        private static MethodHandle adapt(MethodHandle handle, boolean isStatic) {
+            if (isStatic) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle.asType(ACCESSOR_TYPE);
+        }
+    }
+}
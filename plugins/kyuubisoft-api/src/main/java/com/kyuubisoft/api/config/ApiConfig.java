@@ -7,6 +7,8 @@ import com.kyuubisoft.api.KyuubiSoftAPI;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -80,6 +82,193 @@ public class ApiConfig {
         return data.corsOrigin;
     }
 
+    public boolean isKeepAliveEnabled() {
+        return data.keepAliveEnabled;
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return data.idleTimeoutSeconds;
+    }
+
+    public String getTransport() {
+        return data.transport;
+    }
+
+    public boolean isReusePort() {
+        return data.reusePort;
+    }
+
+    public int getAcceptThreads() {
+        return data.acceptThreads;
+    }
+
+    public int getWorkerThreads() {
+        return data.workerThreads;
+    }
+
+    public String getHandlerThreadType() {
+        return data.handlerThreadType;
+    }
+
+    public int getHandlerThreads() {
+        return data.handlerThreads;
+    }
+
+    public int getHandlerQueueCapacity() {
+        return data.handlerQueueCapacity;
+    }
+
+    public String getDefaultRouteExecution() {
+        return data.defaultRouteExecution;
+    }
+
+    public Map<String, String> getRouteExecution() {
+        return data.routeExecution;
+    }
+
+    public boolean isCompressionEnabled() {
+        return data.compressionEnabled;
+    }
+
+    public int getCompressionMinBytes() {
+        return data.compressionMinBytes;
+    }
+
+    public int getCompressionLevel() {
+        return data.compressionLevel;
+    }
+
+    public int getResponseCacheTtlMillis() {
+        return data.responseCacheTtlMillis;
+    }
+
+    public Map<String, Integer> getRouteCacheTtlMillis() {
+        return data.routeCacheTtlMillis;
+    }
+
+    public int getResponseCacheMaxEntries() {
+        return data.responseCacheMaxEntries;
+    }
+
+    public int getBatchMaxRequests() {
+        return data.batchMaxRequests;
+    }
+
+    public int getIndexReconcileSeconds() {
+        return data.indexReconcileSeconds;
+    }
+
+    public int getSnapshotIntervalMillis() {
+        return data.snapshotIntervalMillis;
+    }
+
+    public int getSnapshotIdleSeconds() {
+        return data.snapshotIdleSeconds;
+    }
+
+    public int getTrailCapacity() {
+        return data.trailCapacity;
+    }
+
+    public int getSpatialCellSize() {
+        return data.spatialCellSize;
+    }
+
+    public int getHeatmapIntervalSeconds() {
+        return data.heatmapIntervalSeconds;
+    }
+
+    public int getHeatmapMaxChunks() {
+        return data.heatmapMaxChunks;
+    }
+
+    public int getPositionStreamIntervalMillis() {
+        return data.positionStreamIntervalMillis;
+    }
+
+    public int getPositionStreamPrecision() {
+        return data.positionStreamPrecision;
+    }
+
+    public double getPositionStreamThreshold() {
+        return data.positionStreamThreshold;
+    }
+
+    public int getPositionStreamKeyframeSeconds() {
+        return data.positionStreamKeyframeSeconds;
+    }
+
+    /**
+     * Directory for persistent plugin data such as the session log
+     */
+    public Path getDataPath() {
+        return Path.of("config", "kyuubisoft-api", "data");
+    }
+
+    public boolean isSessionLogEnabled() {
+        return data.sessionLogEnabled;
+    }
+
+    public int getSessionSegmentKb() {
+        return data.sessionSegmentKb;
+    }
+
+    public int getSessionRetentionDays() {
+        return data.sessionRetentionDays;
+    }
+
+    public int getSessionCompactMinutes() {
+        return data.sessionCompactMinutes;
+    }
+
+    public int getChatHistoryCapacity() {
+        return data.chatHistoryCapacity;
+    }
+
+    public boolean isChatPersistEnabled() {
+        return data.chatPersistEnabled;
+    }
+
+    public int getChatSegmentMessages() {
+        return data.chatSegmentMessages;
+    }
+
+    public int getChatFlushSeconds() {
+        return data.chatFlushSeconds;
+    }
+
+    public int getChatRetentionDays() {
+        return data.chatRetentionDays;
+    }
+
+    public int getActionTimeoutMillis() {
+        return data.actionTimeoutMillis;
+    }
+
+    public int getActionMaxTargets() {
+        return data.actionMaxTargets;
+    }
+
+    public int getInventoryIntervalMillis() {
+        return data.inventoryIntervalMillis;
+    }
+
+    public int getInventoryHistory() {
+        return data.inventoryHistory;
+    }
+
+    public int getAppearanceMaxAgeSeconds() {
+        return data.appearanceMaxAgeSeconds;
+    }
+
+    public boolean isPlayerStoreEnabled() {
+        return data.playerStoreEnabled;
+    }
+
+    public int getPlayerStoreCheckpointMinutes() {
+        return data.playerStoreCheckpointMinutes;
+    }
+
     /**
      * Configuration data structure
      */
@@ -91,5 +280,73 @@ public class ApiConfig {
         public String corsOrigin = "*";
         public int wsHeartbeatSeconds = 30;
         public boolean logRequests = false;
+        // HTTP/1.1 persistent connections; idle connections are closed after the timeout (0 = never)
+        public boolean keepAliveEnabled = true;
+        public int idleTimeoutSeconds = 60;
+        // Netty transport: "auto" (epoll if available), "epoll", "io_uring" or "nio"
+        public String transport = "auto";
+        // SO_REUSEPORT: binds one listener per accept thread (native transports only)
+        public boolean reusePort = false;
+        public int acceptThreads = 1;
+        public int workerThreads = 0; // 0 = Netty default
+        // Route handlers run on a bounded executor ("virtual" or "platform" threads)
+        public String handlerThreadType = "virtual";
+        public int handlerThreads = 16;
+        public int handlerQueueCapacity = 512;
+        // "offload" or "inline" (on the Netty event loop); per-route overrides by route name
+        public String defaultRouteExecution = "offload";
+        public Map<String, String> routeExecution = new HashMap<>();
+        // gzip/deflate for bodies of at least compressionMinBytes, level 1 (fast) - 9 (small)
+        public boolean compressionEnabled = true;
+        public int compressionMinBytes = 1024;
+        public int compressionLevel = 6;
+        // Encoded snapshot responses are shared for this long (0 = no caching); per-route overrides
+        public int responseCacheTtlMillis = 1000;
+        public Map<String, Integer> routeCacheTtlMillis = new HashMap<>();
+        public int responseCacheMaxEntries = 512;
+        // Maximum paths in one POST /api/batch request
+        public int batchMaxRequests = 64;
+        // Interval of the player/world index check against the Universe (minimum 1)
+        public int indexReconcileSeconds = 2;
+        // Snapshot sampling interval; sampling pauses after snapshotIdleSeconds without reads
+        public int snapshotIntervalMillis = 250;
+        public int snapshotIdleSeconds = 30;
+        // Position changes kept per player for /trail (0 = off)
+        public int trailCapacity = 1200;
+        // Grid cell size in blocks for area queries
+        public int spatialCellSize = 32;
+        // Heatmap sampling interval (0 = off) and chunks kept per bucket and world
+        public int heatmapIntervalSeconds = 5;
+        public int heatmapMaxChunks = 16384;
+        // WebSocket position frames: minimum interval (0 = off), steps per block,
+        // minimum movement in blocks and keyframe interval
+        public int positionStreamIntervalMillis = 200;
+        public int positionStreamPrecision = 10;
+        public double positionStreamThreshold = 0.25;
+        public int positionStreamKeyframeSeconds = 10;
+        // Session log: segment file size, days before sessions are folded into totals,
+        // and compaction interval (0 = never compact)
+        public boolean sessionLogEnabled = true;
+        public int sessionSegmentKb = 1024;
+        public int sessionRetentionDays = 90;
+        public int sessionCompactMinutes = 60;
+        // Chat messages kept in memory; persisted in segments of chatSegmentMessages,
+        // written at least every chatFlushSeconds and deleted after chatRetentionDays
+        public int chatHistoryCapacity = 10000;
+        public boolean chatPersistEnabled = true;
+        public int chatSegmentMessages = 1000;
+        public int chatFlushSeconds = 60;
+        public int chatRetentionDays = 30;
+        // How long a player action may wait for its world thread
+        public int actionTimeoutMillis = 5000;
+        public int actionMaxTargets = 256;
+        // Inventory capture interval (0 = off) and changes kept per player for ?sinceVersion=
+        public int inventoryIntervalMillis = 1000;
+        public int inventoryHistory = 64;
+        // Client cache lifetime of appearances fetched without ?v=
+        public int appearanceMaxAgeSeconds = 3600;
+        // Last-known state of offline players; online players are also saved every checkpoint (0 = off)
+        public boolean playerStoreEnabled = true;
+        public int playerStoreCheckpointMinutes = 5;
     }
 }
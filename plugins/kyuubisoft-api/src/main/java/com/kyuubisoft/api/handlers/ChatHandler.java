@@ -0,0 +1,64 @@
+package com.kyuubisoft.api.handlers;
+
+import com.kyuubisoft.api.storage.ChatHistory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handler for chat history endpoints
+ */
+public class ChatHandler {
+
+    private final ChatHistory chatHistory;
+
+    public ChatHandler(ChatHistory chatHistory) {
+        this.chatHistory = chatHistory;
+    }
+
+    /**
+     * GET /api/chat?q=&player=&since=&limit=
+     * Returns recent chat messages matching all given filters, newest first
+     */
+    public ChatResponse search(String query, String player, long sinceMillis, int limit) {
+        List<ChatHistory.Message> messages = chatHistory.search(query, player, sinceMillis, limit);
+
+        List<ChatMessage> result = new ArrayList<>(messages.size());
+        for (ChatHistory.Message message : messages) {
+            result.add(new ChatMessage(message));
+        }
+        return new ChatResponse(result);
+    }
+
+    // Response classes
+
+    public static class ChatResponse {
+        public final int count;
+        public final List<ChatMessage> messages;
+
+        public ChatResponse(List<ChatMessage> messages) {
+            this.count = messages.size();
+            this.messages = messages;
+        }
+    }
+
+    /**
+     * Same fields as the player_chat WebSocket event, plus the message id
+     */
+    public static class ChatMessage {
+        public final long id;
+        public final String player;
+        public final String uuid;
+        public final String message;
+        public final String timestamp;
+
+        public ChatMessage(ChatHistory.Message message) {
+            this.id = message.id;
+            this.player = message.player;
+            this.uuid = message.uuid;
+            this.message = message.message;
+            this.timestamp = Instant.ofEpochMilli(message.time).toString();
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.kyuubisoft.api.handlers;
 
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.Universe;
-import com.hypixel.hytale.server.core.universe.world.World;
-import com.hypixel.hytale.math.vector.Transform;
-import com.hypixel.hytale.math.vector.Vector3d;
-import com.hypixel.hytale.math.vector.Vector3f;
+import com.kyuubisoft.api.state.ActionDispatcher;
+import com.kyuubisoft.api.state.PlayerIndex;
+import com.kyuubisoft.api.state.SnapshotEngine;
+import com.kyuubisoft.api.state.UniverseSnapshot;
+import com.kyuubisoft.api.storage.PlayerStore;
+import com.kyuubisoft.api.tracking.InventoryTracker;
+import com.kyuubisoft.api.tracking.PositionHistory;
 
 import java.util.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 /**
@@ -19,136 +25,304 @@ public class PlayersHandler {
 
     private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
 
+    // Slots reported for inventories that were not captured
+    private static final int EMPTY_SLOTS = 36;
+
+    private final PlayerIndex playerIndex;
+    private final SnapshotEngine snapshotEngine;
+    private final PositionHistory positionHistory;
+    private final ActionDispatcher actionDispatcher;
+    private final InventoryTracker inventoryTracker;
+    private final PlayerStore playerStore;
+
+    /**
+     * @param inventoryTracker inventory captures, or null if inventory tracking is disabled
+     * @param playerStore      last-known state of offline players, or null if disabled
+     */
+    public PlayersHandler(PlayerIndex playerIndex, SnapshotEngine snapshotEngine, PositionHistory positionHistory,
+                          ActionDispatcher actionDispatcher, InventoryTracker inventoryTracker,
+                          PlayerStore playerStore) {
+        this.playerIndex = playerIndex;
+        this.snapshotEngine = snapshotEngine;
+        this.positionHistory = positionHistory;
+        this.actionDispatcher = actionDispatcher;
+        this.inventoryTracker = inventoryTracker;
+        this.playerStore = playerStore;
+    }
+
     // ============================================================
     // Player Actions (POST endpoints)
+    // Validation happens on the calling thread; the action itself runs on the
+    // player's world thread and completes the returned future. Actions without
+    // a world-thread body yet are answered at once, so the panel falls back to
+    // its console command without waiting for the world.
     // ============================================================
 
     /**
      * POST /api/players/{name}/heal
      * Heals the player to full health
      */
-    public ActionResult healPlayer(String playerName) {
-        PlayerRef player = findPlayer(playerName);
-        if (player == null) {
-            return new ActionResult(false, "Player not found: " + playerName);
-        }
-
-        // TODO: When Hytale API exposes health modification, implement it here
-        // For now, return false so the panel uses console commands as fallback
-        // Example future API:
-        // PlayerStats stats = player.getStats();
-        // stats.setHealth(stats.getMaxHealth());
-        // return new ActionResult(true, "Player healed");
-
-        LOGGER.info("Heal requested for player: " + playerName + " - using console fallback");
-        return new ActionResult(false, "Not implemented - use console command");
+    public CompletableFuture<ActionResult> healPlayer(String playerName) {
+        return runAction(playerName, "Heal", heal());
     }
 
     /**
      * POST /api/players/{name}/respawn
      * Respawns the player at their spawn point
      */
-    public ActionResult respawnPlayer(String playerName) {
-        PlayerRef player = findPlayer(playerName);
-        if (player == null) {
-            return new ActionResult(false, "Player not found: " + playerName);
-        }
-
-        // TODO: When Hytale API exposes respawn functionality, implement it here
-        LOGGER.info("Respawn requested for player: " + playerName + " - using console fallback");
-        return new ActionResult(false, "Not implemented - use console command");
+    public CompletableFuture<ActionResult> respawnPlayer(String playerName) {
+        return runAction(playerName, "Respawn", respawn());
     }
 
     /**
      * POST /api/players/{name}/kill
      * Kills the player
      */
-    public ActionResult killPlayer(String playerName) {
-        PlayerRef player = findPlayer(playerName);
-        if (player == null) {
-            return new ActionResult(false, "Player not found: " + playerName);
-        }
-
-        // TODO: When Hytale API exposes kill functionality, implement it here
-        LOGGER.info("Kill requested for player: " + playerName + " - using console fallback");
-        return new ActionResult(false, "Not implemented - use console command");
+    public CompletableFuture<ActionResult> killPlayer(String playerName) {
+        return runAction(playerName, "Kill", kill());
     }
 
     /**
      * POST /api/players/{name}/teleport
      * Teleports player to coordinates or another player
      */
-    public ActionResult teleportPlayer(String playerName, Double x, Double y, Double z, String targetPlayer) {
+    public CompletableFuture<ActionResult> teleportPlayer(String playerName, Double x, Double y, Double z,
+                                                          String targetPlayer) {
         PlayerRef player = findPlayer(playerName);
         if (player == null) {
-            return new ActionResult(false, "Player not found: " + playerName);
+            return completed(new ActionResult(false, "Player not found: " + playerName));
         }
 
-        // Validate target
-        if (targetPlayer != null && !targetPlayer.isEmpty()) {
-            PlayerRef target = findPlayer(targetPlayer);
-            if (target == null) {
-                return new ActionResult(false, "Target player not found: " + targetPlayer);
-            }
-        } else if (x == null || y == null || z == null) {
-            return new ActionResult(false, "No target specified");
+        ActionResult invalid = validateTeleport(x, y, z, targetPlayer);
+        if (invalid != null) {
+            return completed(invalid);
         }
-
-        // TODO: When Hytale API exposes teleport functionality, implement it here
-        LOGGER.info("Teleport requested for player: " + playerName + " - using console fallback");
-        return new ActionResult(false, "Not implemented - use console command");
+        return run(player, "Teleport", teleport(x, y, z));
     }
 
     /**
      * POST /api/players/{name}/gamemode
      * Changes the player's gamemode
      */
-    public ActionResult setGamemode(String playerName, String gamemode) {
-        PlayerRef player = findPlayer(playerName);
-        if (player == null) {
-            return new ActionResult(false, "Player not found: " + playerName);
-        }
-
-        // TODO: When Hytale API exposes gamemode modification, implement it here
-        LOGGER.info("Gamemode " + gamemode + " requested for player: " + playerName + " - using console fallback");
-        return new ActionResult(false, "Not implemented - use console command");
+    public CompletableFuture<ActionResult> setGamemode(String playerName, String gamemode) {
+        return runAction(playerName, "Gamemode " + gamemode, changeGamemode(gamemode));
     }
 
     /**
      * POST /api/players/{name}/inventory/clear
      * Clears the player's inventory
      */
-    public ActionResult clearInventory(String playerName) {
-        PlayerRef player = findPlayer(playerName);
-        if (player == null) {
-            return new ActionResult(false, "Player not found: " + playerName);
+    public CompletableFuture<ActionResult> clearInventory(String playerName) {
+        return runAction(playerName, "Clear inventory", emptyInventory());
+    }
+
+    /**
+     * POST /api/players/actions
+     * Runs one action for several players. Targets are grouped by world and each
+     * world runs its group in a single task; results are in target order.
+     *
+     * @param action     heal, respawn, kill, teleport, gamemode or inventory.clear
+     * @param gamemode   required for the gamemode action
+     * @return the results, or null if the action is unknown
+     */
+    public CompletableFuture<BulkActionResult> runBulkAction(String action, List<String> targets,
+                                                             Double x, Double y, Double z,
+                                                             String targetPlayer, String gamemode) {
+        Function<PlayerRef, ActionResult> body;
+        String label;
+        ActionResult invalid = null;
+        switch (action) {
+            case "heal":
+                body = heal();
+                label = "Heal";
+                break;
+            case "respawn":
+                body = respawn();
+                label = "Respawn";
+                break;
+            case "kill":
+                body = kill();
+                label = "Kill";
+                break;
+            case "teleport":
+                invalid = validateTeleport(x, y, z, targetPlayer);
+                body = teleport(x, y, z);
+                label = "Teleport";
+                break;
+            case "gamemode":
+                body = changeGamemode(gamemode);
+                label = "Gamemode " + gamemode;
+                break;
+            case "inventory.clear":
+                body = emptyInventory();
+                label = "Clear inventory";
+                break;
+            default:
+                return null;
+        }
+
+        // Each online player once, even if named several times
+        PlayerRef[] resolved = new PlayerRef[targets.size()];
+        Map<PlayerRef, Integer> slots = new IdentityHashMap<>();
+        List<PlayerRef> players = new ArrayList<>();
+        for (int i = 0; i < resolved.length; i++) {
+            resolved[i] = findPlayer(targets.get(i));
+            if (resolved[i] != null && invalid == null && !slots.containsKey(resolved[i])) {
+                slots.put(resolved[i], players.size());
+                players.add(resolved[i]);
+            }
         }
 
+        List<CompletableFuture<ActionResult>> futures = new ArrayList<>(players.size());
+        if (body != null) {
+            for (CompletableFuture<ActionResult> future : actionDispatcher.submitAll(players, body)) {
+                futures.add(future.exceptionally(PlayersHandler::dispatchFailure));
+            }
+        } else {
+            for (PlayerRef player : players) {
+                futures.add(completed(notImplemented(label, player)));
+            }
+        }
+
+        ActionResult rejected = invalid;
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<TargetResult> results = new ArrayList<>(resolved.length);
+            for (int i = 0; i < resolved.length; i++) {
+                PlayerRef player = resolved[i];
+                ActionResult result;
+                if (player == null) {
+                    result = new ActionResult(false, "Player not found: " + targets.get(i));
+                } else if (rejected != null) {
+                    result = rejected;
+                } else {
+                    result = futures.get(slots.get(player)).join();
+                }
+                results.add(new TargetResult(targets.get(i), player, result));
+            }
+            return new BulkActionResult(action, results);
+        });
+    }
+
+    // World-thread bodies of the actions, null while the Hytale API offers no way to perform them
+
+    private Function<PlayerRef, ActionResult> heal() {
+        // TODO: When Hytale API exposes health modification, implement it here
+        // Example future API:
+        // return player -> {
+        //     PlayerStats stats = player.getStats();
+        //     stats.setHealth(stats.getMaxHealth());
+        //     return new ActionResult(true, "Player healed");
+        // };
+        return null;
+    }
+
+    private Function<PlayerRef, ActionResult> respawn() {
+        // TODO: When Hytale API exposes respawn functionality, implement it here
+        return null;
+    }
+
+    private Function<PlayerRef, ActionResult> kill() {
+        // TODO: When Hytale API exposes kill functionality, implement it here
+        return null;
+    }
+
+    /**
+     * Teleport to the coordinates. Target players are only validated so far.
+     */
+    private Function<PlayerRef, ActionResult> teleport(Double x, Double y, Double z) {
+        // TODO: When Hytale API exposes teleport functionality, implement it here.
+        // A target player (already checked by validateTeleport) must be resolved in the
+        // body and read on its own world's thread if it is in another world.
+        return null;
+    }
+
+    private Function<PlayerRef, ActionResult> changeGamemode(String gamemode) {
+        // TODO: When Hytale API exposes gamemode modification, implement it here
+        return null;
+    }
+
+    private Function<PlayerRef, ActionResult> emptyInventory() {
         // TODO: When Hytale API exposes inventory modification, implement it here
-        // For now, return false so the panel uses console commands as fallback
         // Example future API:
-        // player.getInventory().clear();
-        // return new ActionResult(true, "Inventory cleared");
+        // return player -> {
+        //     player.getInventory().clear();
+        //     return new ActionResult(true, "Inventory cleared");
+        // };
+        return null;
+    }
 
-        LOGGER.info("Clear inventory requested for player: " + playerName + " - using console fallback");
+    /**
+     * Result of an action that has no body yet, so the panel uses console commands as fallback
+     */
+    private static ActionResult notImplemented(String label, PlayerRef player) {
+        LOGGER.info(label + " requested for player: " + player.getUsername() + " - using console fallback");
         return new ActionResult(false, "Not implemented - use console command");
     }
 
     /**
-     * Helper to find a player by name
+     * Failure of a teleport request that no player can satisfy, or null if valid
      */
-    private PlayerRef findPlayer(String playerName) {
-        Universe universe = Universe.get();
-        List<PlayerRef> players = universe.getPlayers();
-
-        for (PlayerRef player : players) {
-            if (player.getUsername().equalsIgnoreCase(playerName)) {
-                return player;
+    private ActionResult validateTeleport(Double x, Double y, Double z, String targetPlayer) {
+        if (targetPlayer != null && !targetPlayer.isEmpty()) {
+            if (findPlayer(targetPlayer) == null) {
+                return new ActionResult(false, "Target player not found: " + targetPlayer);
             }
+        } else if (x == null || y == null || z == null) {
+            return new ActionResult(false, "No target specified");
         }
         return null;
     }
 
+    /**
+     * Look up the player and run the action on their world thread
+     */
+    private CompletableFuture<ActionResult> runAction(String playerName, String label,
+                                                      Function<PlayerRef, ActionResult> action) {
+        PlayerRef player = findPlayer(playerName);
+        if (player == null) {
+            return completed(new ActionResult(false, "Player not found: " + playerName));
+        }
+        return run(player, label, action);
+    }
+
+    /**
+     * Run an action on the player's world thread; dispatch failures become unsuccessful results.
+     * An action without a body is answered at once.
+     */
+    private CompletableFuture<ActionResult> run(PlayerRef player, String label,
+                                                Function<PlayerRef, ActionResult> action) {
+        if (action == null) {
+            return completed(notImplemented(label, player));
+        }
+        return actionDispatcher.submit(player, action).exceptionally(PlayersHandler::dispatchFailure);
+    }
+
+    private static ActionResult dispatchFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            return new ActionResult(false, "Timed out waiting for the world thread");
+        }
+        return new ActionResult(false, cause.getMessage());
+    }
+
+    private static CompletableFuture<ActionResult> completed(ActionResult result) {
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Helper to find an online player by name (case-insensitive) or UUID
+     */
+    public PlayerRef findPlayer(String playerName) {
+        return playerIndex.find(playerName);
+    }
+
+    /**
+     * All online players, in no particular order
+     */
+    public Collection<PlayerRef> onlinePlayers() {
+        return playerIndex.players();
+    }
+
     // ============================================================
     // Player Info (GET endpoints)
     // ============================================================
@@ -158,11 +332,10 @@ public class PlayersHandler {
      * Returns all online players across all worlds
      */
     public PlayersResponse getAllPlayers() {
-        Universe universe = Universe.get();
-        List<PlayerRef> players = universe.getPlayers();
+        List<UniverseSnapshot.PlayerState> players = snapshotEngine.current().players();
 
-        List<PlayerData> playerDataList = new ArrayList<>();
-        for (PlayerRef player : players) {
+        List<PlayerData> playerDataList = new ArrayList<>(players.size());
+        for (UniverseSnapshot.PlayerState player : players) {
             playerDataList.add(createPlayerData(player));
         }
 
@@ -174,29 +347,15 @@ public class PlayersHandler {
      * Returns all players in a specific world
      */
     public PlayersResponse getPlayersInWorld(String worldName) {
-        Universe universe = Universe.get();
-        World world = universe.getWorld(worldName);
+        UniverseSnapshot.WorldState world = snapshotEngine.current().world(worldName);
 
         if (world == null) {
             return new PlayersResponse(0, Collections.emptyList());
         }
 
-        List<PlayerData> playerDataList = new ArrayList<>();
-        List<PlayerRef> players = universe.getPlayers();
-
-        for (PlayerRef player : players) {
-            // Check if player is in this world
-            try {
-                UUID worldUuid = player.getWorldUuid();
-                if (worldUuid != null) {
-                    World playerWorld = universe.getWorld(worldUuid);
-                    if (playerWorld != null && playerWorld.getName().equals(worldName)) {
-                        playerDataList.add(createPlayerData(player));
-                    }
-                }
-            } catch (Exception e) {
-                // Player may be transitioning between worlds
-            }
+        List<PlayerData> playerDataList = new ArrayList<>(world.playerCount());
+        for (UniverseSnapshot.PlayerState player : world.players()) {
+            playerDataList.add(createPlayerData(player));
         }
 
         return new PlayersResponse(playerDataList.size(), playerDataList);
@@ -204,88 +363,114 @@ public class PlayersHandler {
 
     /**
      * GET /api/players/{name}/details
-     * Returns detailed information about a specific player
+     * Returns detailed information about a specific player, or the last-known
+     * state of an offline one
      */
     public PlayerDetails getPlayerDetails(String playerName) {
-        Universe universe = Universe.get();
-        List<PlayerRef> players = universe.getPlayers();
-
-        for (PlayerRef player : players) {
-            if (player.getUsername().equalsIgnoreCase(playerName)) {
-                return createPlayerDetails(player);
-            }
+        UniverseSnapshot.PlayerState player = snapshotEngine.current().player(playerName);
+        if (player != null) {
+            return createPlayerDetails(player);
         }
-
-        return null; // Player not found
+        PlayerStore.LastKnown offline = playerStore != null ? playerStore.get(playerName) : null;
+        return offline != null ? createOfflineDetails(offline) : null;
     }
 
-    private PlayerData createPlayerData(PlayerRef player) {
-        PlayerData data = new PlayerData();
-        data.uuid = player.getUuid().toString();
-        data.name = player.getUsername();
-
-        try {
-            UUID worldUuid = player.getWorldUuid();
-            if (worldUuid != null) {
-                World world = Universe.get().getWorld(worldUuid);
-                if (world != null) {
-                    data.world = world.getName();
+    /**
+     * GET /api/players/offline?limit=
+     * Returns the last-known state of offline players, most recently seen first
+     */
+    public PlayersResponse getOfflinePlayers(int limit) {
+        List<PlayerData> players = new ArrayList<>();
+        if (playerStore != null) {
+            for (PlayerStore.LastKnown state : playerStore.recent()) {
+                if (players.size() >= limit) {
+                    break;
+                }
+                if (playerIndex.get(state.uuid) == null) {
+                    players.add(createOfflineDetails(state));
                 }
             }
-        } catch (Exception e) {
-            data.world = "unknown";
         }
+        return new PlayersResponse(players.size(), players);
+    }
 
-        // Get position from transform
-        try {
-            Transform transform = player.getTransform();
-            if (transform != null) {
-                Vector3d pos = transform.getPosition();
-                if (pos != null) {
-                    data.position = new Position(pos.getX(), pos.getY(), pos.getZ());
-                }
+    /**
+     * Current state of an online player for the player store: the last sampled
+     * position and the last inventory capture, where available. Never waits for
+     * a capture and does not count as a read, so it is safe on game threads.
+     */
+    public PlayerStore.LastKnown lastKnown(PlayerRef player, long time) {
+        UniverseSnapshot.PlayerState state = snapshotEngine.peek().player(player.getUuid().toString());
+        InventoryTracker.Delta inventory = inventoryTracker != null ? inventoryTracker.current(player.getUuid()) : null;
+        int itemCount = 0;
+        if (inventory != null) {
+            for (InventoryTracker.SlotChange slot : inventory.changes) {
+                itemCount += slot.amount;
             }
-        } catch (Exception e) {
-            data.position = null;
         }
+        boolean hasPosition = state != null && state.hasPosition;
+        return new PlayerStore.LastKnown(player.getUuid(), player.getUsername(), state != null ? state.world : null,
+                hasPosition, hasPosition ? state.x : 0, hasPosition ? state.y : 0, hasPosition ? state.z : 0,
+                hasPosition ? state.yaw : 0, hasPosition ? state.pitch : 0, time,
+                inventory != null ? inventory.changes.size() : -1, inventory != null ? inventory.totalSlots : -1,
+                inventory != null ? itemCount : -1);
+    }
 
-        return data;
+    /**
+     * {@link #lastKnown} of every online player
+     */
+    public List<PlayerStore.LastKnown> lastKnownOnline() {
+        long now = System.currentTimeMillis();
+        List<PlayerStore.LastKnown> states = new ArrayList<>();
+        for (PlayerRef player : playerIndex.players()) {
+            states.add(lastKnown(player, now));
+        }
+        return states;
     }
 
-    private PlayerDetails createPlayerDetails(PlayerRef player) {
-        PlayerDetails details = new PlayerDetails();
-        details.uuid = player.getUuid().toString();
-        details.name = player.getUsername();
+    /**
+     * GET /api/players/{name}/trail?since=&step=
+     * Returns the player's recorded positions, oldest first
+     */
+    public PlayerTrail getPlayerTrail(String playerName, long sinceMillis, long stepMillis) {
+        UniverseSnapshot.PlayerState player = snapshotEngine.current().player(playerName);
+        if (player == null) {
+            return null;
+        }
 
-        try {
-            UUID worldUuid = player.getWorldUuid();
-            if (worldUuid != null) {
-                World world = Universe.get().getWorld(worldUuid);
-                if (world != null) {
-                    details.world = world.getName();
-                }
-            }
-        } catch (Exception e) {
-            details.world = "unknown";
+        PlayerTrail trail = new PlayerTrail();
+        trail.uuid = player.uuidString;
+        trail.name = player.name;
+        trail.points = positionHistory.query(player.uuid, sinceMillis, stepMillis);
+        if (trail.points == null) {
+            trail.points = Collections.emptyList();
         }
+        trail.count = trail.points.size();
+        return trail;
+    }
 
-        // Position and rotation from transform
-        try {
-            Transform transform = player.getTransform();
-            if (transform != null) {
-                Vector3d pos = transform.getPosition();
-                if (pos != null) {
-                    details.position = new Position(pos.getX(), pos.getY(), pos.getZ());
-                }
+    private PlayerData createPlayerData(UniverseSnapshot.PlayerState player) {
+        PlayerData data = new PlayerData();
+        data.uuid = player.uuidString;
+        data.name = player.name;
+        data.world = player.world;
+        if (player.hasPosition) {
+            data.position = new Position(player.x, player.y, player.z);
+        }
+        return data;
+    }
 
-                Vector3f rot = transform.getRotation();
-                if (rot != null) {
-                    details.yaw = rot.getY();
-                    details.pitch = rot.getX();
-                }
-            }
-        } catch (Exception e) {
-            details.position = null;
+    private PlayerDetails createPlayerDetails(UniverseSnapshot.PlayerState player) {
+        PlayerDetails details = new PlayerDetails();
+        details.uuid = player.uuidString;
+        details.name = player.name;
+        details.world = player.world;
+
+        // Position and rotation as sampled on the world thread
+        if (player.hasPosition) {
+            details.position = new Position(player.x, player.y, player.z);
+            details.yaw = player.yaw;
+            details.pitch = player.pitch;
         }
 
         // Try to get additional stats (may not be available depending on server version)
@@ -300,21 +485,49 @@ public class PlayersHandler {
         return details;
     }
 
+    private PlayerDetails createOfflineDetails(PlayerStore.LastKnown state) {
+        PlayerDetails details = new PlayerDetails();
+        details.uuid = state.uuid.toString();
+        details.name = state.name;
+        details.world = state.world;
+        if (state.hasPosition) {
+            details.position = new Position(state.x, state.y, state.z);
+            details.yaw = state.yaw;
+            details.pitch = state.pitch;
+        }
+        details.online = false;
+        details.lastSeen = state.lastSeen;
+        if (state.hasInventory()) {
+            details.inventory = new InventorySummary(state.usedSlots, state.totalSlots, state.itemCount);
+        }
+        return details;
+    }
+
     /**
      * GET /api/players/{name}/inventory
      * Returns the player's inventory items
      */
     public PlayerInventory getPlayerInventory(String playerName) {
-        Universe universe = Universe.get();
-        List<PlayerRef> players = universe.getPlayers();
+        PlayerRef player = findPlayer(playerName);
+        return player != null ? createPlayerInventory(player) : null;
+    }
 
-        for (PlayerRef player : players) {
-            if (player.getUsername().equalsIgnoreCase(playerName)) {
-                return createPlayerInventory(player);
-            }
+    /**
+     * GET /api/players/{name}/inventory?sinceVersion=
+     * Returns only the slots changed since the given version
+     */
+    public InventoryTracker.Delta getInventoryChanges(String playerName, long sinceVersion) {
+        PlayerRef player = findPlayer(playerName);
+        if (player == null) {
+            return null;
         }
-
-        return null; // Player not found
+        InventoryTracker.Delta delta = inventoryTracker != null
+                ? inventoryTracker.since(player.getUuid(), sinceVersion) : null;
+        if (delta == null) {
+            // Not captured yet: nothing is known, so report a full empty inventory
+            delta = InventoryTracker.Delta.empty(player.getUuid(), player.getUsername(), sinceVersion, EMPTY_SLOTS);
+        }
+        return delta;
     }
 
     private PlayerInventory createPlayerInventory(PlayerRef player) {
@@ -322,20 +535,23 @@ public class PlayersHandler {
         inventory.uuid = player.getUuid().toString();
         inventory.name = player.getUsername();
         inventory.items = new ArrayList<>();
-        inventory.totalSlots = 36;
+        inventory.totalSlots = EMPTY_SLOTS;
         inventory.usedSlots = 0;
 
-        // TODO: When Hytale API exposes inventory access, implement real inventory reading
-        // For now, we return an empty inventory structure
-        // Future implementation would look like:
-        // PlayerInventoryAccess inv = player.getInventory();
-        // for (int i = 0; i < inv.getSize(); i++) {
-        //     ItemStack item = inv.getItem(i);
-        //     if (item != null) {
-        //         inventory.items.add(new InventoryItem(i, item.getId(), item.getAmount()));
-        //         inventory.usedSlots++;
-        //     }
-        // }
+        // Last capture from the world thread; empty until the first capture or
+        // if the server does not expose inventories
+        InventoryTracker.Delta current = inventoryTracker != null ? inventoryTracker.current(player.getUuid()) : null;
+        if (current != null) {
+            inventory.version = current.version;
+            inventory.totalSlots = current.totalSlots;
+            for (InventoryTracker.SlotChange slot : current.changes) {
+                InventoryItem item = new InventoryItem(slot.slot, slot.itemId, slot.amount);
+                item.durability = slot.durability != null ? slot.durability : 0;
+                item.maxDurability = slot.maxDurability != null ? slot.maxDurability : 0;
+                inventory.items.add(item);
+                inventory.usedSlots++;
+            }
+        }
 
         return inventory;
     }
@@ -345,19 +561,11 @@ public class PlayersHandler {
      * Returns the player's appearance/skin information
      */
     public PlayerAppearance getPlayerAppearance(String playerName) {
-        Universe universe = Universe.get();
-        List<PlayerRef> players = universe.getPlayers();
-
-        for (PlayerRef player : players) {
-            if (player.getUsername().equalsIgnoreCase(playerName)) {
-                return createPlayerAppearance(player);
-            }
-        }
-
-        return null; // Player not found
+        PlayerRef player = findPlayer(playerName);
+        return player != null ? getPlayerAppearance(player) : null;
     }
 
-    private PlayerAppearance createPlayerAppearance(PlayerRef player) {
+    public PlayerAppearance getPlayerAppearance(PlayerRef player) {
         PlayerAppearance appearance = new PlayerAppearance();
         appearance.uuid = player.getUuid().toString();
         appearance.name = player.getUsername();
@@ -402,6 +610,30 @@ public class PlayersHandler {
         public String gamemode;
         public double health;
         public double maxHealth;
+        public boolean online = true;
+        /** Epoch ms, only set for offline players */
+        public Long lastSeen;
+        /** Only set for offline players */
+        public InventorySummary inventory;
+    }
+
+    public static class InventorySummary {
+        public final int usedSlots;
+        public final int totalSlots;
+        public final int itemCount;
+
+        public InventorySummary(int usedSlots, int totalSlots, int itemCount) {
+            this.usedSlots = usedSlots;
+            this.totalSlots = totalSlots;
+            this.itemCount = itemCount;
+        }
+    }
+
+    public static class PlayerTrail {
+        public String uuid;
+        public String name;
+        public int count;
+        public List<PositionHistory.TrailPoint> points;
     }
 
     public static class Position {
@@ -421,6 +653,8 @@ public class PlayersHandler {
     public static class PlayerInventory {
         public String uuid;
         public String name;
+        /** Pass as ?sinceVersion= to get only later changes */
+        public long version;
         public List<InventoryItem> items;
         public int totalSlots;
         public int usedSlots;
@@ -487,4 +721,38 @@ public class PlayersHandler {
             this.message = message;
         }
     }
+
+    public static class BulkActionResult {
+        public final String action;
+        public final int total;
+        public final int succeeded;
+        public final List<TargetResult> results;
+
+        public BulkActionResult(String action, List<TargetResult> results) {
+            this.action = action;
+            this.total = results.size();
+            int succeeded = 0;
+            for (TargetResult result : results) {
+                if (result.result.success) {
+                    succeeded++;
+                }
+            }
+            this.succeeded = succeeded;
+            this.results = results;
+        }
+    }
+
+    public static class TargetResult {
+        /** The name or UUID as given in the request */
+        public final String target;
+        /** Null if the player is not online */
+        public final String uuid;
+        public final ActionResult result;
+
+        public TargetResult(String target, PlayerRef player, ActionResult result) {
+            this.target = target;
+            this.uuid = player != null ? player.getUuid().toString() : null;
+            this.result = result;
+        }
+    }
 }
@@ -0,0 +1,143 @@
+package com.kyuubisoft.api.handlers;
+
+import com.kyuubisoft.api.storage.SessionLog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Handler for session and playtime endpoints, served from the session log's
+ * in-memory aggregates
+ */
+public class PlaytimeHandler {
+
+    private final SessionLog sessionLog;
+
+    /**
+     * @param sessionLog the session log, or null if session tracking is disabled
+     */
+    public PlaytimeHandler(SessionLog sessionLog) {
+        this.sessionLog = sessionLog;
+    }
+
+    /**
+     * GET /api/players/{name}/sessions?limit=
+     * Returns playtime totals and recent sessions of an online or offline player
+     */
+    public PlayerSessions getPlayerSessions(String nameOrUuid, int limit) {
+        if (sessionLog == null) {
+            return null;
+        }
+        SessionLog.Summary summary = sessionLog.summary(nameOrUuid);
+        if (summary == null) {
+            return null;
+        }
+
+        List<SessionData> sessions = new ArrayList<>();
+        for (SessionLog.Session session : sessionLog.sessions(summary.uuid, limit)) {
+            sessions.add(new SessionData(session));
+        }
+        return new PlayerSessions(summary, sessionLog.getRetentionMillis() / 86_400_000L, sessions);
+    }
+
+    /**
+     * GET /api/stats/playtime?limit=
+     * Returns server-wide totals and the players with the most playtime
+     */
+    public PlaytimeStats getPlaytimeStats(int limit) {
+        PlaytimeStats stats = new PlaytimeStats();
+        stats.top = new ArrayList<>();
+        if (sessionLog == null) {
+            return stats;
+        }
+
+        List<SessionLog.Summary> summaries = sessionLog.summaries();
+        for (SessionLog.Summary summary : summaries) {
+            stats.totalPlaytimeSeconds += summary.playtimeMillis / 1000;
+            stats.totalSessions += summary.sessionCount;
+            if (summary.online) {
+                stats.onlinePlayers++;
+            }
+        }
+        stats.uniquePlayers = summaries.size();
+
+        summaries.sort(Comparator.comparingLong((SessionLog.Summary summary) -> summary.playtimeMillis).reversed());
+        for (int i = 0; i < summaries.size() && i < limit; i++) {
+            stats.top.add(new PlaytimeEntry(summaries.get(i)));
+        }
+        return stats;
+    }
+
+    private static String timestamp(long millis) {
+        return Instant.ofEpochMilli(millis).toString();
+    }
+
+    // Response classes
+
+    public static class PlayerSessions {
+        public final String uuid;
+        public final String name;
+        public final boolean online;
+        public final int sessionCount;
+        public final long playtimeSeconds;
+        public final String firstSeen;
+        public final String lastSeen;
+        /** Sessions older than this are only counted in the totals */
+        public final long retentionDays;
+        public final List<SessionData> sessions;
+
+        public PlayerSessions(SessionLog.Summary summary, long retentionDays, List<SessionData> sessions) {
+            this.uuid = summary.uuid.toString();
+            this.name = summary.name;
+            this.online = summary.online;
+            this.sessionCount = summary.sessionCount;
+            this.playtimeSeconds = summary.playtimeMillis / 1000;
+            this.firstSeen = timestamp(summary.firstSeen);
+            this.lastSeen = timestamp(summary.lastSeen);
+            this.retentionDays = retentionDays;
+            this.sessions = sessions;
+        }
+    }
+
+    public static class SessionData {
+        public final String start;
+        /** Null while the session is still open */
+        public final String end;
+        public final long durationSeconds;
+
+        public SessionData(SessionLog.Session session) {
+            this.start = timestamp(session.start);
+            this.end = session.end >= 0 ? timestamp(session.end) : null;
+            long end = session.end >= 0 ? session.end : System.currentTimeMillis();
+            this.durationSeconds = Math.max(0, end - session.start) / 1000;
+        }
+    }
+
+    public static class PlaytimeStats {
+        public int uniquePlayers;
+        public int onlinePlayers;
+        public long totalSessions;
+        public long totalPlaytimeSeconds;
+        public List<PlaytimeEntry> top;
+    }
+
+    public static class PlaytimeEntry {
+        public final String uuid;
+        public final String name;
+        public final long playtimeSeconds;
+        public final int sessionCount;
+        public final String lastSeen;
+        public final boolean online;
+
+        public PlaytimeEntry(SessionLog.Summary summary) {
+            this.uuid = summary.uuid.toString();
+            this.name = summary.name;
+            this.playtimeSeconds = summary.playtimeMillis / 1000;
+            this.sessionCount = summary.sessionCount;
+            this.lastSeen = timestamp(summary.lastSeen);
+            this.online = summary.online;
+        }
+    }
+}
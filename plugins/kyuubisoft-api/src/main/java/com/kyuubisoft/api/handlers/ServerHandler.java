@@ -1,7 +1,8 @@
 package com.kyuubisoft.api.handlers;
 
-import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.common.util.java.ManifestUtil;
+import com.kyuubisoft.api.state.SnapshotEngine;
+import com.kyuubisoft.api.state.UniverseSnapshot;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
@@ -15,12 +16,19 @@ public class ServerHandler {
 
     private static final long SERVER_START_TIME = System.currentTimeMillis();
 
+    private final SnapshotEngine snapshotEngine;
+
+    public ServerHandler(SnapshotEngine snapshotEngine) {
+        this.snapshotEngine = snapshotEngine;
+    }
+
     /**
      * GET /api/server/info
      * Returns general server information
      */
     public ServerInfo getServerInfo() {
         ServerInfo info = new ServerInfo();
+        UniverseSnapshot snapshot = snapshotEngine.current();
 
         // Version info
         try {
@@ -33,7 +41,7 @@ public class ServerHandler {
 
         // Player counts
         try {
-            info.onlinePlayers = Universe.get().getPlayers().size();
+            info.onlinePlayers = snapshot.players().size();
             info.maxPlayers = 100; // TODO: Get from config when available
         } catch (Exception e) {
             info.onlinePlayers = 0;
@@ -42,7 +50,7 @@ public class ServerHandler {
 
         // World count
         try {
-            info.worldCount = Universe.get().getWorlds().size();
+            info.worldCount = snapshot.worlds().size();
         } catch (Exception e) {
             info.worldCount = 0;
         }
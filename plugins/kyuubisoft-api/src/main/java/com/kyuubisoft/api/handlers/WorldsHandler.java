@@ -1,8 +1,9 @@
 package com.kyuubisoft.api.handlers;
 
-import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.Universe;
-import com.hypixel.hytale.server.core.universe.world.World;
+import com.kyuubisoft.api.state.SnapshotEngine;
+import com.kyuubisoft.api.state.UniverseSnapshot;
+import com.kyuubisoft.api.tracking.HeatmapAggregator;
+import com.kyuubisoft.api.tracking.SpatialIndex;
 
 import java.util.*;
 
@@ -11,16 +12,25 @@ import java.util.*;
  */
 public class WorldsHandler {
 
+    private final SnapshotEngine snapshotEngine;
+    private final SpatialIndex spatialIndex;
+    private final HeatmapAggregator heatmaps;
+
+    public WorldsHandler(SnapshotEngine snapshotEngine, SpatialIndex spatialIndex, HeatmapAggregator heatmaps) {
+        this.snapshotEngine = snapshotEngine;
+        this.spatialIndex = spatialIndex;
+        this.heatmaps = heatmaps;
+    }
+
     /**
      * GET /api/worlds
      * Returns all available worlds
      */
     public WorldsResponse getAllWorlds() {
-        Universe universe = Universe.get();
-        Map<String, World> worldMap = universe.getWorlds();
+        List<UniverseSnapshot.WorldState> worlds = snapshotEngine.current().worlds();
 
-        List<WorldData> worldDataList = new ArrayList<>();
-        for (World world : worldMap.values()) {
+        List<WorldData> worldDataList = new ArrayList<>(worlds.size());
+        for (UniverseSnapshot.WorldState world : worlds) {
             worldDataList.add(createWorldData(world));
         }
 
@@ -32,8 +42,7 @@ public class WorldsHandler {
      * Returns information about a specific world
      */
     public WorldData getWorld(String worldName) {
-        Universe universe = Universe.get();
-        World world = universe.getWorld(worldName);
+        UniverseSnapshot.WorldState world = snapshotEngine.current().world(worldName);
 
         if (world == null) {
             return null;
@@ -47,8 +56,7 @@ public class WorldsHandler {
      * Returns detailed statistics for a world
      */
     public WorldStats getWorldStats(String worldName) {
-        Universe universe = Universe.get();
-        World world = universe.getWorld(worldName);
+        UniverseSnapshot.WorldState world = snapshotEngine.current().world(worldName);
 
         if (world == null) {
             return null;
@@ -57,69 +65,68 @@ public class WorldsHandler {
         return createWorldStats(world);
     }
 
-    private WorldData createWorldData(World world) {
-        WorldData data = new WorldData();
-        data.name = world.getName();
+    /**
+     * GET /api/worlds/{name}/players/near?x=&z=&r=
+     * Returns players within r blocks of (x, z), nearest first
+     */
+    public AreaPlayersResponse getPlayersNear(String worldName, double x, double z, double radius) {
+        snapshotEngine.current();
+        List<UniverseSnapshot.PlayerState> players = spatialIndex.near(worldName, x, z, radius);
+        if (players == null) {
+            return null;
+        }
 
-        // Count players in this world
-        try {
-            Universe universe = Universe.get();
-            List<PlayerRef> allPlayers = universe.getPlayers();
-            int playerCount = 0;
-            for (PlayerRef player : allPlayers) {
-                try {
-                    UUID worldUuid = player.getWorldUuid();
-                    if (worldUuid != null) {
-                        World playerWorld = universe.getWorld(worldUuid);
-                        if (playerWorld != null && playerWorld.getName().equals(world.getName())) {
-                            playerCount++;
-                        }
-                    }
-                } catch (Exception e) {
-                    // Ignore
-                }
-            }
-            data.playerCount = playerCount;
-        } catch (Exception e) {
-            data.playerCount = 0;
+        List<AreaPlayer> result = new ArrayList<>(players.size());
+        for (UniverseSnapshot.PlayerState player : players) {
+            double dx = player.x - x;
+            double dz = player.z - z;
+            result.add(new AreaPlayer(player, Math.round(Math.sqrt(dx * dx + dz * dz) * 100.0) / 100.0));
         }
+        return new AreaPlayersResponse(worldName, result);
+    }
 
-        // Try to get world properties
-        try {
-            data.isTicking = true; // Assume true if world exists
-        } catch (Exception e) {
-            data.isTicking = true;
+    /**
+     * GET /api/worlds/{name}/players/box?minX=&minZ=&maxX=&maxZ=
+     * Returns players inside the box
+     */
+    public AreaPlayersResponse getPlayersInBox(String worldName, double minX, double minZ, double maxX, double maxZ) {
+        snapshotEngine.current();
+        List<UniverseSnapshot.PlayerState> players = spatialIndex.box(worldName, minX, minZ, maxX, maxZ);
+        if (players == null) {
+            return null;
+        }
+
+        List<AreaPlayer> result = new ArrayList<>(players.size());
+        for (UniverseSnapshot.PlayerState player : players) {
+            result.add(new AreaPlayer(player, null));
+        }
+        return new AreaPlayersResponse(worldName, result);
+    }
+
+    /**
+     * GET /api/worlds/{name}/heatmap?window=hour|day|all
+     * Returns sampled player density per chunk
+     */
+    public Heatmap getHeatmap(String worldName, HeatmapAggregator.Window window) {
+        if (snapshotEngine.current().world(worldName) == null) {
+            return null;
         }
+        return new Heatmap(worldName, window, heatmaps.getIntervalMillis() / 1000.0,
+                heatmaps.query(worldName, window));
+    }
 
+    private WorldData createWorldData(UniverseSnapshot.WorldState world) {
+        WorldData data = new WorldData();
+        data.name = world.name;
+        data.playerCount = world.playerCount();
+        data.isTicking = true; // Assume true if world exists
         return data;
     }
 
-    private WorldStats createWorldStats(World world) {
+    private WorldStats createWorldStats(UniverseSnapshot.WorldState world) {
         WorldStats stats = new WorldStats();
-        stats.name = world.getName();
-
-        // Count players
-        try {
-            Universe universe = Universe.get();
-            List<PlayerRef> allPlayers = universe.getPlayers();
-            int playerCount = 0;
-            for (PlayerRef player : allPlayers) {
-                try {
-                    UUID worldUuid = player.getWorldUuid();
-                    if (worldUuid != null) {
-                        World playerWorld = universe.getWorld(worldUuid);
-                        if (playerWorld != null && playerWorld.getName().equals(world.getName())) {
-                            playerCount++;
-                        }
-                    }
-                } catch (Exception e) {
-                    // Ignore
-                }
-            }
-            stats.playerCount = playerCount;
-        } catch (Exception e) {
-            stats.playerCount = 0;
-        }
+        stats.name = world.name;
+        stats.playerCount = world.playerCount();
 
         // Try to get additional stats (may vary by server version)
         try {
@@ -145,6 +152,65 @@ public class WorldsHandler {
         }
     }
 
+    public static class AreaPlayersResponse {
+        public final String world;
+        public final int count;
+        public final List<AreaPlayer> players;
+
+        public AreaPlayersResponse(String world, List<AreaPlayer> players) {
+            this.world = world;
+            this.count = players.size();
+            this.players = players;
+        }
+    }
+
+    public static class AreaPlayer {
+        public final String uuid;
+        public final String name;
+        public final PlayersHandler.Position position;
+        /** Horizontal distance to the query point, null for box queries */
+        public final Double distance;
+
+        AreaPlayer(UniverseSnapshot.PlayerState player, Double distance) {
+            this.uuid = player.uuidString;
+            this.name = player.name;
+            this.position = new PlayersHandler.Position(player.x, player.y, player.z);
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Chunk counters as flat [chunkX, chunkZ, samples, ...] triples; one
+     * sample is one player seen in the chunk, taken every sampleSeconds
+     */
+    public static class Heatmap {
+        public final String world;
+        public final String window;
+        public final int chunkSize = HeatmapAggregator.CHUNK_SIZE;
+        public final double sampleSeconds;
+        public final int chunks;
+        public final int max;
+        public final long total;
+        public final int[] cells;
+
+        public Heatmap(String world, HeatmapAggregator.Window window, double sampleSeconds, int[] cells) {
+            this.world = world;
+            this.window = window.name().toLowerCase(Locale.ROOT);
+            this.sampleSeconds = sampleSeconds;
+            this.chunks = cells.length / 3;
+            this.cells = cells;
+
+            int max = 0;
+            long total = 0;
+            for (int i = 2; i < cells.length; i += 3) {
+                max = Math.max(max, cells[i]);
+                total += cells[i];
+            }
+            this.max = max;
+            this.total = total;
+        }
+    }
+
     public static class WorldData {
         public String name;
         public int playerCount;
@@ -0,0 +1,194 @@
+package com.kyuubisoft.api.state;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Runs player actions on the thread of the world the player is in.
+ *
+ * Actions are queued per world and drained by a single task on the world's
+ * thread, so all actions that arrive before the world gets to that task run
+ * together in the same tick with one hand-off. Callers receive a future and
+ * never wait for the game loop; futures fail after {@code timeoutMillis}, and
+ * actions whose future has already failed are skipped instead of run late.
+ */
+public class ActionDispatcher {
+
+    private final long timeoutMillis;
+    private final Map<UUID, WorldQueue> queues = new ConcurrentHashMap<>();
+
+    public ActionDispatcher(long timeoutMillis) {
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+
+    /**
+     * Queue an action onto the player's world thread.
+     *
+     * @return the action's result; fails with an IllegalStateException if the
+     *         player is not in a loaded world or changed world before the action
+     *         ran, and with a TimeoutException if the world did not run it in time
+     */
+    public <T> CompletableFuture<T> submit(PlayerRef player, Function<PlayerRef, T> action) {
+        return submitAll(List.of(player), action).get(0);
+    }
+
+    /**
+     * Queue the same action for several players. Players are grouped by world and
+     * each group is queued as a single task, run for all of its players in one go.
+     *
+     * @return one future per player, in the given order, completing as in {@link #submit}
+     */
+    public <T> List<CompletableFuture<T>> submitAll(List<PlayerRef> players, Function<PlayerRef, T> action) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(players.size());
+        Map<UUID, PendingAction<T>> groups = new LinkedHashMap<>();
+        Map<UUID, World> worlds = new HashMap<>();
+
+        for (PlayerRef player : players) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            futures.add(future);
+
+            UUID worldUuid = null;
+            World world = null;
+            try {
+                worldUuid = player.getWorldUuid();
+                if (worldUuid != null) {
+                    world = Universe.get().getWorld(worldUuid);
+                }
+            } catch (Exception e) {
+                // Player is transitioning between worlds
+            }
+            if (world == null) {
+                future.completeExceptionally(new IllegalStateException("Player is not in a world"));
+                continue;
+            }
+
+            future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            worlds.putIfAbsent(worldUuid, world);
+            groups.computeIfAbsent(worldUuid, id -> new PendingAction<>(id, action)).add(player, future);
+        }
+
+        for (Map.Entry<UUID, PendingAction<T>> group : groups.entrySet()) {
+            queue(group.getKey(), worlds.get(group.getKey())).add(group.getValue());
+        }
+        return futures;
+    }
+
+    private WorldQueue queue(UUID worldUuid, World world) {
+        // A world reloaded under the same id gets a fresh queue
+        return queues.compute(worldUuid, (id, queue) ->
+                queue != null && queue.world == world ? queue : new WorldQueue(world));
+    }
+
+    /**
+     * An action for one or more players of the world it was queued for
+     */
+    private static final class PendingAction<T> {
+        final UUID worldUuid;
+        final Function<PlayerRef, T> action;
+        final List<PlayerRef> players = new ArrayList<>(1);
+        final List<CompletableFuture<T>> futures = new ArrayList<>(1);
+
+        PendingAction(UUID worldUuid, Function<PlayerRef, T> action) {
+            this.worldUuid = worldUuid;
+            this.action = action;
+        }
+
+        void add(PlayerRef player, CompletableFuture<T> future) {
+            players.add(player);
+            futures.add(future);
+        }
+
+        /**
+         * Runs on the world's thread
+         */
+        void run() {
+            for (int i = 0; i < players.size(); i++) {
+                CompletableFuture<T> future = futures.get(i);
+                if (future.isDone()) {
+                    // Timed out while queued
+                    continue;
+                }
+                PlayerRef player = players.get(i);
+                try {
+                    if (!worldUuid.equals(player.getWorldUuid())) {
+                        future.completeExceptionally(new IllegalStateException("Player changed world"));
+                        continue;
+                    }
+                    future.complete(action.apply(player));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+        }
+
+        void fail(Throwable error) {
+            for (CompletableFuture<T> future : futures) {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Pending actions of one world and whether a drain task is scheduled on it
+     */
+    private static final class WorldQueue {
+        final World world;
+        final Queue<PendingAction<?>> actions = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        WorldQueue(World world) {
+            this.world = world;
+        }
+
+        void add(PendingAction<?> action) {
+            actions.add(action);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                world.execute(this::drain);
+            } catch (RuntimeException e) {
+                // World is shutting down; its actions can no longer run
+                scheduled.set(false);
+                PendingAction<?> action;
+                while ((action = actions.poll()) != null) {
+                    action.fail(new IllegalStateException("World is not accepting tasks"));
+                }
+            }
+        }
+
+        /**
+         * Run everything queued so far. Runs on the world's thread.
+         */
+        private void drain() {
+            PendingAction<?> action;
+            while ((action = actions.poll()) != null) {
+                action.run();
+            }
+            scheduled.set(false);
+            // Actions added after the last poll but before the flag was cleared
+            if (!actions.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.kyuubisoft.api.state;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of online players by case-insensitive name and by UUID.
+ *
+ * Maintained by the connect/disconnect listeners, so API lookups are a map get
+ * instead of a scan over {@code Universe.getPlayers()}.
+ *
+ * Writes are serialized; reads are lock-free.
+ */
+public class PlayerIndex {
+
+    private final Map<String, PlayerRef> byName = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerRef> byUuid = new ConcurrentHashMap<>();
+    // Players seen by the listeners while a reconciliation pass runs, null otherwise
+    private Set<UUID> joinedDuringPass;
+    private Set<UUID> leftDuringPass;
+
+    /**
+     * Index the players already online (e.g. after a plugin reload)
+     */
+    public void seed(Universe universe) {
+        for (PlayerRef player : universe.getPlayers()) {
+            add(player);
+        }
+    }
+
+    public synchronized void add(PlayerRef player) {
+        if (joinedDuringPass != null) {
+            joinedDuringPass.add(player.getUuid());
+        }
+        put(player);
+    }
+
+    /**
+     * Remove a player. Entries already replaced by a newer connection of the
+     * same player are kept.
+     */
+    public synchronized void remove(PlayerRef player) {
+        if (leftDuringPass != null) {
+            leftDuringPass.add(player.getUuid());
+        }
+        drop(player);
+    }
+
+    private void put(PlayerRef player) {
+        byName.put(nameKey(player.getUsername()), player);
+        byUuid.put(player.getUuid(), player);
+    }
+
+    private void drop(PlayerRef player) {
+        byName.remove(nameKey(player.getUsername()), player);
+        byUuid.remove(player.getUuid(), player);
+    }
+
+    /**
+     * Add players whose connect event was missed and drop those whose disconnect was.
+     *
+     * The list of online players is a copy that the listeners race with, so
+     * players that connected or disconnected after it was taken keep the state
+     * their event gave them.
+     *
+     * @return number of corrected entries
+     */
+    public int reconcile(Universe universe) {
+        synchronized (this) {
+            joinedDuringPass = new HashSet<>();
+            leftDuringPass = new HashSet<>();
+        }
+        try {
+            List<PlayerRef> online = universe.getPlayers();
+            Set<UUID> onlineIds = new HashSet<>(online.size() * 2);
+            int corrections = 0;
+
+            synchronized (this) {
+                for (PlayerRef player : online) {
+                    onlineIds.add(player.getUuid());
+                    if (byUuid.get(player.getUuid()) != player && !leftDuringPass.contains(player.getUuid())) {
+                        put(player);
+                        corrections++;
+                    }
+                }
+                for (PlayerRef player : byUuid.values()) {
+                    if (!onlineIds.contains(player.getUuid()) && !joinedDuringPass.contains(player.getUuid())) {
+                        drop(player);
+                        corrections++;
+                    }
+                }
+            }
+            return corrections;
+        } finally {
+            synchronized (this) {
+                joinedDuringPass = null;
+                leftDuringPass = null;
+            }
+        }
+    }
+
+    /**
+     * Online player by name (case-insensitive) or UUID string, or null
+     */
+    public PlayerRef find(String nameOrUuid) {
+        if (nameOrUuid == null) {
+            return null;
+        }
+        UUID uuid = parseUuid(nameOrUuid);
+        if (uuid != null) {
+            PlayerRef player = byUuid.get(uuid);
+            if (player != null) {
+                return player;
+            }
+        }
+        return byName.get(nameKey(nameOrUuid));
+    }
+
+    public PlayerRef get(UUID uuid) {
+        return byUuid.get(uuid);
+    }
+
+    public Collection<PlayerRef> players() {
+        return byUuid.values();
+    }
+
+    public int size() {
+        return byUuid.size();
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * UUID in canonical 8-4-4-4-12 form, or null. Cheap length check first,
+     * since most lookups are by name.
+     */
+    static UUID parseUuid(String value) {
+        if (value.length() != 36 || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
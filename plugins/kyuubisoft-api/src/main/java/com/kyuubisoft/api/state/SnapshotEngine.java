@@ -0,0 +1,316 @@
+package com.kyuubisoft.api.state;
+
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import io.netty.util.concurrent.FastThreadLocalThread;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Samples the universe into an immutable UniverseSnapshot at a fixed cadence.
+ *
+ * Each world's players are read by a task on that world's own thread, so
+ * transforms are read between ticks rather than while the game mutates them.
+ * The assembled snapshot is published through a single volatile reference;
+ * API reads never lock and never touch live game objects.
+ *
+ * Sampling pauses when no snapshot was read for {@code idleMillis}. The first
+ * read after a pause triggers an immediate capture and waits briefly for it;
+ * on a Netty event loop (inline routes) it never waits and gets the previous
+ * snapshot while the capture runs.
+ * Listeners registered as continuous (e.g. position history) keep sampling
+ * running regardless of reads.
+ */
+public class SnapshotEngine {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    // How long a capture waits for world threads before reusing their previous state
+    private static final long WORLD_TIMEOUT_MILLIS = 500;
+    // How long a read waits for a capture after a pause
+    private static final long REFRESH_TIMEOUT_MILLIS = 1000;
+
+    private final PlayerIndex playerIndex;
+    private final WorldIndex worldIndex;
+    private final long intervalMillis;
+    private final long idleMillis;
+    private final long staleMillis;
+
+    private final List<Consumer<UniverseSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean continuous;
+
+    private volatile UniverseSnapshot current = UniverseSnapshot.EMPTY;
+    private volatile long lastReadMillis;
+    // Set while a refresh without a waiting reader is queued
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    public SnapshotEngine(PlayerIndex playerIndex, WorldIndex worldIndex, long intervalMillis, long idleMillis) {
+        this.playerIndex = playerIndex;
+        this.worldIndex = worldIndex;
+        this.intervalMillis = Math.max(50, intervalMillis);
+        this.idleMillis = Math.max(this.intervalMillis, idleMillis);
+        this.staleMillis = this.intervalMillis * 2 + WORLD_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Receive every published snapshot on the snapshot thread. Listeners must be
+     * quick; they delay the next capture.
+     *
+     * @param continuous keep sampling even when no API client reads snapshots
+     */
+    public void addListener(Consumer<UniverseSnapshot> listener, boolean continuous) {
+        listeners.add(listener);
+        if (continuous) {
+            this.continuous = true;
+        }
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KyuubiSoftAPI-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Latest snapshot. Marks the engine as in use, and refreshes the snapshot
+     * first if sampling was paused. Event loop threads are never blocked: they
+     * get the stale snapshot and the refresh runs in the background.
+     */
+    public UniverseSnapshot current() {
+        lastReadMillis = System.currentTimeMillis();
+        UniverseSnapshot snapshot = current;
+        if (lastReadMillis - snapshot.capturedAtMillis() > staleMillis && scheduler != null) {
+            if (Thread.currentThread() instanceof FastThreadLocalThread) {
+                refreshLater();
+            } else {
+                snapshot = refresh();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Latest snapshot without refreshing it or counting as a read
+     */
+    public UniverseSnapshot peek() {
+        return current;
+    }
+
+    /**
+     * Capture a new snapshot now (e.g. after a join or leave) and run
+     * {@code afterPublish} once it is visible to readers
+     */
+    public void captureSoon(Runnable afterPublish) {
+        if (scheduler == null) {
+            afterPublish.run();
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                try {
+                    capture();
+                } catch (Exception e) {
+                    LOGGER.warning("Snapshot capture failed: " + e.getMessage());
+                } finally {
+                    afterPublish.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Engine stopped
+            afterPublish.run();
+        }
+    }
+
+    private UniverseSnapshot refresh() {
+        try {
+            Future<?> capture = scheduler.submit(this::captureIfStale);
+            capture.get(REFRESH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            // Serve the previous snapshot
+        }
+        return current;
+    }
+
+    private void refreshLater() {
+        if (!refreshQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                refreshQueued.set(false);
+                try {
+                    captureIfStale();
+                } catch (Exception e) {
+                    LOGGER.warning("Snapshot capture failed: " + e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Engine stopped
+            refreshQueued.set(false);
+        }
+    }
+
+    private void captureIfStale() {
+        if (System.currentTimeMillis() - current.capturedAtMillis() > staleMillis) {
+            capture();
+        }
+    }
+
+    private void tick() {
+        if (!continuous && System.currentTimeMillis() - lastReadMillis > idleMillis
+                && current != UniverseSnapshot.EMPTY) {
+            return;
+        }
+        try {
+            capture();
+        } catch (Exception e) {
+            LOGGER.warning("Snapshot capture failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Capture all worlds and publish the result. Runs on the snapshot thread.
+     */
+    private void capture() {
+        UniverseSnapshot previous = current;
+        List<World> worlds = new ArrayList<>(Universe.get().getWorlds().values());
+        List<CompletableFuture<UniverseSnapshot.WorldState>> captures = new ArrayList<>(worlds.size());
+        for (World world : worlds) {
+            captures.add(captureWorld(world));
+        }
+
+        try {
+            CompletableFuture.allOf(captures.toArray(new CompletableFuture[0]))
+                    .get(WORLD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            // Worlds that did not answer keep their previous state below
+        }
+
+        UniverseSnapshot.WorldState[] worldStates = new UniverseSnapshot.WorldState[worlds.size()];
+        Map<UUID, UniverseSnapshot.PlayerState> players = new LinkedHashMap<>();
+        List<UniverseSnapshot.WorldState> carriedOver = new ArrayList<>();
+        for (int i = 0; i < worlds.size(); i++) {
+            CompletableFuture<UniverseSnapshot.WorldState> capture = captures.get(i);
+            UniverseSnapshot.WorldState state;
+            if (capture.isDone() && !capture.isCompletedExceptionally()) {
+                state = capture.join();
+                for (UniverseSnapshot.PlayerState player : state.players()) {
+                    players.put(player.uuid, player);
+                }
+            } else {
+                String name = worlds.get(i).getName();
+                state = previous.world(name);
+                if (state == null) {
+                    state = new UniverseSnapshot.WorldState(name, new UniverseSnapshot.PlayerState[0]);
+                }
+                carriedOver.add(state);
+            }
+            worldStates[i] = state;
+        }
+
+        // Players of stalled worlds, unless a fresh capture already placed them elsewhere
+        for (UniverseSnapshot.WorldState state : carriedOver) {
+            for (UniverseSnapshot.PlayerState player : state.players()) {
+                players.putIfAbsent(player.uuid, player);
+            }
+        }
+        // Players not in any world (connecting or between worlds)
+        for (PlayerRef player : playerIndex.players()) {
+            if (!players.containsKey(player.getUuid()) && worldIndex.worldName(player) == null) {
+                players.put(player.getUuid(), new UniverseSnapshot.PlayerState(player.getUuid(),
+                        player.getUsername(), null, false, 0, 0, 0, 0, 0));
+            }
+        }
+
+        UniverseSnapshot snapshot = new UniverseSnapshot(previous.version() + 1, System.currentTimeMillis(),
+                players.values().toArray(new UniverseSnapshot.PlayerState[0]), worldStates);
+        current = snapshot;
+
+        for (Consumer<UniverseSnapshot> listener : listeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (Exception e) {
+                LOGGER.warning("Snapshot listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private CompletableFuture<UniverseSnapshot.WorldState> captureWorld(World world) {
+        CompletableFuture<UniverseSnapshot.WorldState> future = new CompletableFuture<>();
+        try {
+            world.execute(() -> {
+                try {
+                    future.complete(readWorld(world.getName()));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Read the players of a world. Runs on the world's thread.
+     */
+    private UniverseSnapshot.WorldState readWorld(String worldName) {
+        List<PlayerRef> members = worldIndex.players(worldName);
+        UniverseSnapshot.PlayerState[] states = new UniverseSnapshot.PlayerState[members.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = readPlayer(members.get(i), worldName);
+        }
+        return new UniverseSnapshot.WorldState(worldName, states);
+    }
+
+    private static UniverseSnapshot.PlayerState readPlayer(PlayerRef player, String worldName) {
+        try {
+            Transform transform = player.getTransform();
+            Vector3d pos = transform != null ? transform.getPosition() : null;
+            if (pos != null) {
+                Vector3f rot = transform.getRotation();
+                return new UniverseSnapshot.PlayerState(player.getUuid(), player.getUsername(), worldName, true,
+                        pos.getX(), pos.getY(), pos.getZ(),
+                        rot != null ? rot.getY() : 0, rot != null ? rot.getX() : 0);
+            }
+        } catch (Exception e) {
+            // Transform not available, e.g. while the player is loading
+        }
+        return new UniverseSnapshot.PlayerState(player.getUuid(), player.getUsername(), worldName, false,
+                0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.kyuubisoft.api.state;
+
+import com.hypixel.hytale.server.core.universe.Universe;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Periodically checks the event-maintained indexes against the Universe.
+ *
+ * Catches world transitions (there is no per-transition event the indexes
+ * listen to) and any missed connect/disconnect events. One pass is O(players),
+ * independent of how many requests read the indexes.
+ */
+public class StateReconciler {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    private final PlayerIndex playerIndex;
+    private final WorldIndex worldIndex;
+    private final int intervalSeconds;
+    private final Runnable onChange;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param onChange run after a pass that corrected any entry
+     */
+    public StateReconciler(PlayerIndex playerIndex, WorldIndex worldIndex, int intervalSeconds, Runnable onChange) {
+        this.playerIndex = playerIndex;
+        this.worldIndex = worldIndex;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.onChange = onChange;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KyuubiSoftAPI-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcile, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run one pass now
+     */
+    public void reconcile() {
+        try {
+            Universe universe = Universe.get();
+            int missed = playerIndex.reconcile(universe);
+            int moved = worldIndex.reconcile(universe);
+            if (missed > 0) {
+                LOGGER.fine("Player index corrected " + missed + " entries");
+            }
+            if (missed > 0 || moved > 0) {
+                onChange.run();
+            }
+        } catch (Exception e) {
+            LOGGER.warning("Index reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
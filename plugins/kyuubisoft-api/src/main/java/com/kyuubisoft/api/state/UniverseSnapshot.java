@@ -0,0 +1,144 @@
+package com.kyuubisoft.api.state;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable view of the online players and loaded worlds at one point in time.
+ *
+ * Built by the SnapshotEngine and published as a whole, so readers on any
+ * thread see a consistent state without locking and without touching live
+ * game objects.
+ */
+public final class UniverseSnapshot {
+
+    public static final UniverseSnapshot EMPTY = new UniverseSnapshot(0, 0, new PlayerState[0], new WorldState[0]);
+
+    private final long version;
+    private final long capturedAtMillis;
+    private final List<PlayerState> players;
+    private final List<WorldState> worlds;
+    private final Map<String, PlayerState> playersByName;
+    private final Map<UUID, PlayerState> playersByUuid;
+    private final Map<String, WorldState> worldsByName;
+
+    UniverseSnapshot(long version, long capturedAtMillis, PlayerState[] players, WorldState[] worlds) {
+        this.version = version;
+        this.capturedAtMillis = capturedAtMillis;
+        this.players = Collections.unmodifiableList(Arrays.asList(players));
+        this.worlds = Collections.unmodifiableList(Arrays.asList(worlds));
+
+        this.playersByName = new HashMap<>(players.length * 2);
+        this.playersByUuid = new HashMap<>(players.length * 2);
+        for (PlayerState player : players) {
+            playersByName.put(player.name.toLowerCase(Locale.ROOT), player);
+            playersByUuid.put(player.uuid, player);
+        }
+        this.worldsByName = new HashMap<>(worlds.length * 2);
+        for (WorldState world : worlds) {
+            worldsByName.put(world.name, world);
+        }
+    }
+
+    /**
+     * Increases by one with every published snapshot
+     */
+    public long version() {
+        return version;
+    }
+
+    public long capturedAtMillis() {
+        return capturedAtMillis;
+    }
+
+    public List<PlayerState> players() {
+        return players;
+    }
+
+    public List<WorldState> worlds() {
+        return worlds;
+    }
+
+    /**
+     * Player by name (case-insensitive) or UUID string, or null
+     */
+    public PlayerState player(String nameOrUuid) {
+        if (nameOrUuid == null) {
+            return null;
+        }
+        UUID uuid = PlayerIndex.parseUuid(nameOrUuid);
+        if (uuid != null) {
+            PlayerState player = playersByUuid.get(uuid);
+            if (player != null) {
+                return player;
+            }
+        }
+        return playersByName.get(nameOrUuid.toLowerCase(Locale.ROOT));
+    }
+
+    public PlayerState player(UUID uuid) {
+        return playersByUuid.get(uuid);
+    }
+
+    public WorldState world(String name) {
+        return worldsByName.get(name);
+    }
+
+    /**
+     * A player as captured on its world thread
+     */
+    public static final class PlayerState {
+        public final UUID uuid;
+        public final String uuidString;
+        public final String name;
+        /** World name, null if the player is not in a world */
+        public final String world;
+        /** False if no transform was available */
+        public final boolean hasPosition;
+        public final double x;
+        public final double y;
+        public final double z;
+        public final float yaw;
+        public final float pitch;
+
+        PlayerState(UUID uuid, String name, String world, boolean hasPosition,
+                    double x, double y, double z, float yaw, float pitch) {
+            this.uuid = uuid;
+            this.uuidString = uuid.toString();
+            this.name = name;
+            this.world = world;
+            this.hasPosition = hasPosition;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+    }
+
+    /**
+     * A loaded world and the players in it
+     */
+    public static final class WorldState {
+        public final String name;
+        private final List<PlayerState> players;
+
+        WorldState(String name, PlayerState[] players) {
+            this.name = name;
+            this.players = Collections.unmodifiableList(Arrays.asList(players));
+        }
+
+        public List<PlayerState> players() {
+            return players;
+        }
+
+        public int playerCount() {
+            return players.size();
+        }
+    }
+}
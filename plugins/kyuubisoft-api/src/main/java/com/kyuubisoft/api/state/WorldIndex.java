@@ -0,0 +1,181 @@
+package com.kyuubisoft.api.state;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which world each online player is in, and the players of each world.
+ *
+ * Membership changes are applied when a player connects or disconnects and by
+ * the periodic reconciliation pass, which moves players whose world changed.
+ * Reads (player count, members of a world, world of a player) are map lookups,
+ * so world listings no longer scan every player for every world.
+ *
+ * Writes are serialized; reads are lock-free.
+ */
+public class WorldIndex {
+
+    private final Map<UUID, Membership> byPlayer = new ConcurrentHashMap<>();
+    private final Map<String, Set<PlayerRef>> byWorld = new ConcurrentHashMap<>();
+    // Players seen by the listeners while a reconciliation pass runs, null otherwise
+    private Set<UUID> joinedDuringPass;
+    private Set<UUID> leftDuringPass;
+
+    /**
+     * Record the player's current world.
+     *
+     * @return true if the membership changed
+     */
+    public synchronized boolean update(Universe universe, PlayerRef player) {
+        if (joinedDuringPass != null) {
+            joinedDuringPass.add(player.getUuid());
+        }
+        return apply(universe, player);
+    }
+
+    private boolean apply(Universe universe, PlayerRef player) {
+        UUID worldUuid;
+        try {
+            worldUuid = player.getWorldUuid();
+        } catch (Exception e) {
+            // Player is transitioning between worlds, pick it up on the next pass
+            return false;
+        }
+
+        Membership current = byPlayer.get(player.getUuid());
+        if (current != null && current.player == player && Objects.equals(current.worldUuid, worldUuid)) {
+            return false;
+        }
+
+        String worldName = null;
+        if (worldUuid != null) {
+            World world = universe.getWorld(worldUuid);
+            if (world != null) {
+                worldName = world.getName();
+            }
+        }
+
+        if (current != null) {
+            leave(current);
+        }
+        byPlayer.put(player.getUuid(), new Membership(player, worldUuid, worldName));
+        if (worldName != null) {
+            byWorld.computeIfAbsent(worldName, name -> ConcurrentHashMap.newKeySet()).add(player);
+        }
+        return true;
+    }
+
+    /**
+     * Forget a player. Entries of a newer connection of the same player are kept.
+     */
+    public synchronized void remove(PlayerRef player) {
+        if (leftDuringPass != null) {
+            leftDuringPass.add(player.getUuid());
+        }
+        drop(player);
+    }
+
+    private void drop(PlayerRef player) {
+        Membership current = byPlayer.get(player.getUuid());
+        if (current != null && current.player == player) {
+            byPlayer.remove(player.getUuid());
+            leave(current);
+        }
+    }
+
+    private void leave(Membership membership) {
+        if (membership.worldName == null) {
+            return;
+        }
+        Set<PlayerRef> members = byWorld.get(membership.worldName);
+        if (members != null) {
+            members.remove(membership.player);
+            if (members.isEmpty()) {
+                byWorld.remove(membership.worldName);
+            }
+        }
+    }
+
+    /**
+     * Bring the index in line with the universe: move players whose world
+     * changed and drop players that are no longer online. Players that
+     * connected or disconnected after the online list was taken keep the
+     * membership their event gave them.
+     *
+     * @return number of corrected entries
+     */
+    public int reconcile(Universe universe) {
+        synchronized (this) {
+            joinedDuringPass = new HashSet<>();
+            leftDuringPass = new HashSet<>();
+        }
+        try {
+            List<PlayerRef> online = universe.getPlayers();
+            Set<UUID> onlineIds = new HashSet<>(online.size() * 2);
+            int corrections = 0;
+
+            synchronized (this) {
+                for (PlayerRef player : online) {
+                    onlineIds.add(player.getUuid());
+                    if (!leftDuringPass.contains(player.getUuid()) && apply(universe, player)) {
+                        corrections++;
+                    }
+                }
+                for (Membership membership : byPlayer.values()) {
+                    UUID uuid = membership.player.getUuid();
+                    if (!onlineIds.contains(uuid) && !joinedDuringPass.contains(uuid)) {
+                        drop(membership.player);
+                        corrections++;
+                    }
+                }
+            }
+            return corrections;
+        } finally {
+            synchronized (this) {
+                joinedDuringPass = null;
+                leftDuringPass = null;
+            }
+        }
+    }
+
+    public int playerCount(String worldName) {
+        Set<PlayerRef> members = byWorld.get(worldName);
+        return members != null ? members.size() : 0;
+    }
+
+    public List<PlayerRef> players(String worldName) {
+        Set<PlayerRef> members = byWorld.get(worldName);
+        return members != null ? new ArrayList<>(members) : Collections.emptyList();
+    }
+
+    /**
+     * Name of the world a player is in, or null if unknown
+     */
+    public String worldName(PlayerRef player) {
+        Membership membership = byPlayer.get(player.getUuid());
+        return membership != null ? membership.worldName : null;
+    }
+
+    private static final class Membership {
+        final PlayerRef player;
+        final UUID worldUuid;
+        final String worldName;
+
+        Membership(PlayerRef player, UUID worldUuid, String worldName) {
+            this.player = player;
+            this.worldUuid = worldUuid;
+            this.worldName = worldName;
+        }
+    }
+}
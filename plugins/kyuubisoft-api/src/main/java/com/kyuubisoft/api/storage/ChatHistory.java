@@ -0,0 +1,471 @@
+package com.kyuubisoft.api.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Recent chat messages with an inverted index over words and players.
+ *
+ * Messages get increasing ids and are kept in a ring of {@code capacity}
+ * entries. Each word (lowercased, split on anything that is not a letter or
+ * digit, longer words by their first {@code MAX_TOKEN_LENGTH} characters)
+ * and each sender name and UUID has a posting list of message ids in
+ * ascending order. When the ring overwrites its oldest message, that id is at
+ * the head of each of its posting lists and is dropped from there, so the
+ * index never holds more than the ring.
+ *
+ * Messages are also collected into segments that are written to disk as JSON
+ * lines when they reach {@code segmentMessages} messages, and at every flush
+ * interval. On start the newest segments refill the ring. Segment files
+ * older than {@code retentionDays} are deleted.
+ */
+public class ChatHistory {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+    private static final Gson GSON = new Gson();
+
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+    private static final int MAX_TOKEN_LENGTH = 32;
+
+    private final int capacity;
+    private final Path directory;
+    private final int segmentMessages;
+    private final long retentionMillis;
+
+    // Ring of messages, slot = id % capacity. Guarded by this.
+    private final Message[] ring;
+    private long nextId = 1;
+    private int size;
+    private final Map<String, Postings> words = new HashMap<>();
+    private final Map<String, Postings> senders = new HashMap<>();
+
+    // Messages not yet written to disk. Guarded by this.
+    private List<Message> segment = new ArrayList<>();
+
+    private ScheduledExecutorService writer;
+
+    /**
+     * @param directory segment directory, or null to keep history in memory only
+     */
+    public ChatHistory(int capacity, Path directory, int segmentMessages, int retentionDays) {
+        this.capacity = Math.max(16, capacity);
+        this.directory = directory;
+        this.segmentMessages = Math.max(1, segmentMessages);
+        this.retentionMillis = Math.max(1, retentionDays) * 24L * 60 * 60 * 1000;
+        this.ring = new Message[this.capacity];
+    }
+
+    /**
+     * Load the newest segments and start writing new ones
+     *
+     * @param flushSeconds maximum time a message stays unwritten
+     */
+    public void start(int flushSeconds) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        deleteExpired();
+        load();
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KyuubiSoftAPI-chat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushSeconds);
+        writer.scheduleWithFixedDelay(this::rotate, interval, interval, TimeUnit.SECONDS);
+        writer.scheduleWithFixedDelay(this::deleteExpiredQuietly, 1, 1, TimeUnit.HOURS);
+    }
+
+    /**
+     * Write the open segment and stop
+     */
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        rotate();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Record a chat message
+     */
+    public void add(String player, String uuid, String text, long time) {
+        Message message;
+        List<Message> full = null;
+        synchronized (this) {
+            message = new Message(nextId++, time, player, uuid, text);
+            index(message);
+            if (writer != null) {
+                segment.add(message);
+                if (segment.size() >= segmentMessages) {
+                    full = segment;
+                    segment = new ArrayList<>();
+                }
+            }
+        }
+        if (full != null) {
+            write(full);
+        }
+    }
+
+    /**
+     * Messages matching all filters, newest first.
+     *
+     * @param query     words that must all appear, or null
+     * @param player    sender name or UUID, or null
+     * @param sinceMillis only messages after this time (epoch millis), 0 for all
+     */
+    public synchronized List<Message> search(String query, String player, long sinceMillis, int limit) {
+        List<Postings> filters = new ArrayList<>();
+        // Words longer than the indexed prefix; the prefix only finds candidates
+        List<String> longWords = new ArrayList<>();
+        if (query != null && !query.isBlank()) {
+            Set<String> tokens = tokenize(query);
+            if (tokens.isEmpty()) {
+                // Only punctuation: nothing can match
+                return new ArrayList<>();
+            }
+            for (String word : split(query, Integer.MAX_VALUE)) {
+                if (word.length() > MAX_TOKEN_LENGTH) {
+                    longWords.add(word);
+                }
+            }
+            for (String word : tokens) {
+                Postings postings = words.get(word);
+                if (postings == null) {
+                    return new ArrayList<>();
+                }
+                filters.add(postings);
+            }
+        }
+        if (player != null && !player.isEmpty()) {
+            Postings postings = senders.get(player.toLowerCase(Locale.ROOT));
+            if (postings == null) {
+                return new ArrayList<>();
+            }
+            filters.add(postings);
+        }
+
+        List<Message> result = new ArrayList<>(Math.min(limit, size));
+        if (filters.isEmpty()) {
+            for (long id = nextId - 1; id >= nextId - size && result.size() < limit; id--) {
+                Message message = ring[slot(id)];
+                if (message.time <= sinceMillis) {
+                    break;
+                }
+                result.add(message);
+            }
+            return result;
+        }
+
+        // Walk the shortest list from the newest id and probe the others
+        Postings shortest = filters.get(0);
+        for (Postings postings : filters) {
+            if (postings.size < shortest.size) {
+                shortest = postings;
+            }
+        }
+        for (int i = shortest.size - 1; i >= 0 && result.size() < limit; i--) {
+            long id = shortest.get(i);
+            Message message = ring[slot(id)];
+            if (message.time <= sinceMillis) {
+                break;
+            }
+            boolean matches = true;
+            for (Postings postings : filters) {
+                if (postings != shortest && !postings.contains(id)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches && !longWords.isEmpty()) {
+                matches = split(message.message, Integer.MAX_VALUE).containsAll(longWords);
+            }
+            if (matches) {
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Index
+
+    private int slot(long id) {
+        return (int) (id % capacity);
+    }
+
+    private void index(Message message) {
+        if (size == capacity) {
+            evict(ring[slot(message.id)]);
+        } else {
+            size++;
+        }
+        ring[slot(message.id)] = message;
+
+        for (String word : tokenize(message.message)) {
+            words.computeIfAbsent(word, key -> new Postings()).add(message.id);
+        }
+        for (String sender : senderKeys(message)) {
+            senders.computeIfAbsent(sender, key -> new Postings()).add(message.id);
+        }
+    }
+
+    private void evict(Message message) {
+        for (String word : tokenize(message.message)) {
+            removeHead(words, word, message.id);
+        }
+        for (String sender : senderKeys(message)) {
+            removeHead(senders, sender, message.id);
+        }
+    }
+
+    private static void removeHead(Map<String, Postings> index, String key, long id) {
+        Postings postings = index.get(key);
+        if (postings != null && postings.size > 0 && postings.get(0) == id) {
+            postings.removeFirst();
+            if (postings.size == 0) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> senderKeys(Message message) {
+        Set<String> keys = new LinkedHashSet<>(2);
+        if (message.player != null && !message.player.isEmpty()) {
+            keys.add(message.player.toLowerCase(Locale.ROOT));
+        }
+        if (message.uuid != null && !message.uuid.isEmpty()) {
+            keys.add(message.uuid.toLowerCase(Locale.ROOT));
+        }
+        return keys;
+    }
+
+    /**
+     * Distinct lowercase words of a text as indexed, longer words cut to
+     * their first {@code MAX_TOKEN_LENGTH} characters
+     */
+    static Set<String> tokenize(String text) {
+        return split(text, MAX_TOKEN_LENGTH);
+    }
+
+    private static Set<String> split(String text, int maxLength) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i - start > maxLength ? start + maxLength : i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Segments
+
+    private void rotate() {
+        List<Message> pending;
+        synchronized (this) {
+            if (segment.isEmpty()) {
+                return;
+            }
+            pending = segment;
+            segment = new ArrayList<>();
+        }
+        write(pending);
+    }
+
+    private void write(List<Message> messages) {
+        try {
+            writer.execute(() -> writeSegment(messages));
+        } catch (RuntimeException e) {
+            // Writer stopped, e.g. during shutdown
+            writeSegment(messages);
+        }
+    }
+
+    /**
+     * Write a segment to a temporary file first, so a crash never leaves a partial segment
+     */
+    private void writeSegment(List<Message> messages) {
+        Path target = directory.resolve(String.format("%012d%s", messages.get(0).id, SEGMENT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Message message : messages) {
+                    out.write(GSON.toJson(message));
+                    out.newLine();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warning("Failed to write chat segment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Refill the ring from the newest segments
+     */
+    private void load() throws IOException {
+        List<Path> files = segmentFiles();
+        List<List<Message>> loaded = new ArrayList<>();
+        int count = 0;
+        for (int i = files.size() - 1; i >= 0 && count < capacity; i--) {
+            List<Message> messages = new ArrayList<>();
+            try (BufferedReader in = Files.newBufferedReader(files.get(i), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    try {
+                        Message message = GSON.fromJson(line, Message.class);
+                        if (message != null) {
+                            messages.add(message);
+                        }
+                    } catch (JsonParseException e) {
+                        // Skip damaged line
+                    }
+                }
+            }
+            loaded.add(0, messages);
+            count += messages.size();
+        }
+
+        synchronized (this) {
+            for (List<Message> messages : loaded) {
+                for (Message message : messages) {
+                    if (message.id < nextId) {
+                        continue;
+                    }
+                    if (message.id != nextId && size > 0) {
+                        // Ids must be contiguous in the ring: keep only the run after a lost segment
+                        Arrays.fill(ring, null);
+                        words.clear();
+                        senders.clear();
+                        size = 0;
+                    }
+                    nextId = message.id + 1;
+                    index(message);
+                }
+            }
+        }
+        if (count > 0) {
+            LOGGER.info("Chat history loaded: " + size + " messages");
+        }
+    }
+
+    private void deleteExpiredQuietly() {
+        try {
+            deleteExpired();
+        } catch (IOException e) {
+            LOGGER.warning("Failed to delete old chat segments: " + e.getMessage());
+        }
+    }
+
+    private void deleteExpired() throws IOException {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (Path file : segmentFiles()) {
+            if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Ascending message ids; ids are only appended at the tail and removed at the head
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int head;
+        private int size;
+
+        void add(long id) {
+            if (head + size == ids.length) {
+                if (head > ids.length / 2) {
+                    System.arraycopy(ids, head, ids, 0, size);
+                } else {
+                    ids = Arrays.copyOfRange(ids, head, head + ids.length * 2);
+                }
+                head = 0;
+            }
+            ids[head + size++] = id;
+        }
+
+        long get(int index) {
+            return ids[head + index];
+        }
+
+        void removeFirst() {
+            head++;
+            size--;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, head, head + size, id) >= 0;
+        }
+    }
+
+    /**
+     * A chat message, as stored and returned by the API
+     */
+    public static class Message {
+        public final long id;
+        public final long time;
+        public final String player;
+        public final String uuid;
+        public final String message;
+
+        public Message(long id, long time, String player, String uuid, String message) {
+            this.id = id;
+            this.time = time;
+            this.player = player;
+            this.uuid = uuid;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.kyuubisoft.api.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Last-known state of every player seen: name, world, position, last seen
+ * time and a summary of the inventory.
+ *
+ * A record is appended to a single file when a player disconnects and for all
+ * online players at every checkpoint, always on the store's own writer thread. On start the file is read once and the
+ * latest record per player is kept in memory, indexed by UUID and by name.
+ * Each record is a length-prefixed body followed by its CRC32, so a record
+ * torn by a crash is detected and cut off on the next start.
+ *
+ * Once the file holds more than {@code COMPACT_FACTOR} records per player it
+ * is rewritten with one record per player into a temporary file, which then
+ * atomically replaces the old one.
+ */
+public class PlayerStore {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    private static final byte FORMAT = 1;
+    private static final byte HAS_POSITION = 1;
+    private static final byte HAS_INVENTORY = 2;
+
+    private static final String FILE_NAME = "players.dat";
+    private static final String COMPACT_NAME = "players.dat.tmp";
+    private static final int MAX_STRING_BYTES = 64;
+    private static final int COMPACT_FACTOR = 4;
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private final Path directory;
+
+    // Guarded by this
+    private final Map<UUID, LastKnown> players = new HashMap<>();
+    private final Map<String, UUID> byName = new HashMap<>();
+
+    // Only used on the writer thread once started
+    private FileChannel channel;
+    private int records;
+
+    private Supplier<List<LastKnown>> online;
+    private volatile ScheduledExecutorService writer;
+
+    public PlayerStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Load the store and start checkpointing the online players
+     *
+     * @param checkpointMinutes minutes between checkpoints, 0 to write on disconnect only
+     * @param online            current state of the online players, taken at every checkpoint
+     */
+    public synchronized void start(int checkpointMinutes, Supplier<List<LastKnown>> online) throws IOException {
+        this.online = online;
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(COMPACT_NAME));
+
+        Path file = directory.resolve(FILE_NAME);
+        ByteBuffer data = ByteBuffer.wrap(Files.exists(file) ? Files.readAllBytes(file) : new byte[0]);
+        int end = readRecords(data);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (end < channel.size()) {
+            LOGGER.warning("Player store: dropped " + (channel.size() - end) + " bytes of an incomplete record");
+            channel.truncate(end);
+        }
+        channel.position(end);
+        LOGGER.info("Player store loaded: " + players.size() + " players");
+
+        // All file writes run here, so callers on a world thread never wait for the disk
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KyuubiSoftAPI-players");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (checkpointMinutes > 0) {
+            writer.scheduleWithFixedDelay(this::checkpointQuietly, checkpointMinutes, checkpointMinutes,
+                    TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Write pending records, checkpoint the online players a last time and close the file
+     */
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        // Periodic checkpoints are cancelled by shutdown(); queued records are still written
+        writer.execute(() -> {
+            checkpointQuietly();
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warning("Failed to close player store: " + e.getMessage());
+            }
+            channel = null;
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warning("Player store did not finish writing within 10 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Store a player's state. Position, world and inventory missing from it are
+     * kept from the previous record. Lookups see it at once; the record is
+     * appended to the file on the writer thread.
+     */
+    public void record(LastKnown state) {
+        if (state == null || writer == null) {
+            return;
+        }
+        LastKnown merged = merge(state);
+        try {
+            writer.execute(() -> append(merged));
+        } catch (RejectedExecutionException e) {
+            // Stopped; the state is lost with the process
+        }
+    }
+
+    /**
+     * Last-known state by name (case-insensitive) or UUID, or null if never seen
+     */
+    public synchronized LastKnown get(String nameOrUuid) {
+        UUID uuid = byName.get(nameOrUuid.toLowerCase(Locale.ROOT));
+        if (uuid == null) {
+            try {
+                uuid = UUID.fromString(nameOrUuid);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return players.get(uuid);
+    }
+
+    /**
+     * All stored players, most recently seen first
+     */
+    public synchronized List<LastKnown> recent() {
+        List<LastKnown> result = new ArrayList<>(players.values());
+        result.sort((a, b) -> Long.compare(b.lastSeen, a.lastSeen));
+        return result;
+    }
+
+    private synchronized LastKnown merge(LastKnown state) {
+        LastKnown merged = state.merge(players.get(state.uuid));
+        index(merged);
+        return merged;
+    }
+
+    private void append(LastKnown state) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            ByteBuffer record = ByteBuffer.wrap(encode(state));
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            records++;
+        } catch (IOException e) {
+            LOGGER.warning("Failed to write player store: " + e.getMessage());
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            LOGGER.warning("Player store checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    private void checkpoint() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        List<LastKnown> states = online != null ? online.get() : Collections.emptyList();
+        for (LastKnown state : states) {
+            append(merge(state));
+        }
+        channel.force(false);
+        int stored;
+        synchronized (this) {
+            stored = players.size();
+        }
+        if (records > COMPACT_MIN_RECORDS && records > stored * COMPACT_FACTOR) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite the file with the latest record of each player
+     */
+    private void compact() throws IOException {
+        List<LastKnown> states;
+        synchronized (this) {
+            states = new ArrayList<>(players.values());
+        }
+        Path temp = directory.resolve(COMPACT_NAME);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (LastKnown state : states) {
+                ByteBuffer record = ByteBuffer.wrap(encode(state));
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Path file = directory.resolve(FILE_NAME);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Appends continue on whichever file is in place
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        LOGGER.fine("Compacted player store from " + records + " to " + states.size() + " records");
+        records = states.size();
+    }
+
+    private void index(LastKnown state) {
+        LastKnown previous = players.put(state.uuid, state);
+        if (previous != null && previous.name != null && !previous.name.equals(state.name)) {
+            byName.remove(previous.name.toLowerCase(Locale.ROOT), state.uuid);
+        }
+        if (state.name != null) {
+            byName.put(state.name.toLowerCase(Locale.ROOT), state.uuid);
+        }
+    }
+
+    // Record encoding:
+    //   u16 body length | body | i32 CRC32 of body
+    //   body: format, UUID, last seen, flags, [x y z yaw pitch], [used total items], name, world
+
+    private static byte[] encode(LastKnown state) {
+        byte[] name = utf8(state.name);
+        byte[] world = utf8(state.world);
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 1 + 16 + 8 + 1 + 32 + 8 + 2 + name.length + world.length + 4);
+        buffer.position(2);
+        buffer.put(FORMAT);
+        buffer.putLong(state.uuid.getMostSignificantBits()).putLong(state.uuid.getLeastSignificantBits());
+        buffer.putLong(state.lastSeen);
+        buffer.put((byte) ((state.hasPosition ? HAS_POSITION : 0) | (state.hasInventory() ? HAS_INVENTORY : 0)));
+        if (state.hasPosition) {
+            buffer.putDouble(state.x).putDouble(state.y).putDouble(state.z);
+            buffer.putFloat(state.yaw).putFloat(state.pitch);
+        }
+        if (state.hasInventory()) {
+            buffer.putShort((short) state.usedSlots).putShort((short) state.totalSlots).putInt(state.itemCount);
+        }
+        buffer.put((byte) name.length).put(name);
+        buffer.put((byte) world.length).put(world);
+
+        int bodyLength = buffer.position() - 2;
+        buffer.putShort(0, (short) bodyLength);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 2, bodyLength);
+        buffer.putInt((int) crc.getValue());
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Index all complete records; stops at the first torn or corrupt one
+     *
+     * @return the position after the last complete record
+     */
+    private int readRecords(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 2) {
+            int start = buffer.position();
+            int length = buffer.getShort() & 0xFFFF;
+            if (length == 0 || buffer.remaining() < length + 4) {
+                return start;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if (buffer.getInt(buffer.position() + length) != (int) crc.getValue()) {
+                return start;
+            }
+
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length + 4);
+            records++;
+            if (body.get() != FORMAT) {
+                // Written by a newer version
+                continue;
+            }
+            index(decode(body));
+        }
+        return buffer.position();
+    }
+
+    private static LastKnown decode(ByteBuffer body) {
+        UUID uuid = new UUID(body.getLong(), body.getLong());
+        long lastSeen = body.getLong();
+        byte flags = body.get();
+        boolean hasPosition = (flags & HAS_POSITION) != 0;
+        double x = 0;
+        double y = 0;
+        double z = 0;
+        float yaw = 0;
+        float pitch = 0;
+        if (hasPosition) {
+            x = body.getDouble();
+            y = body.getDouble();
+            z = body.getDouble();
+            yaw = body.getFloat();
+            pitch = body.getFloat();
+        }
+        int usedSlots = -1;
+        int totalSlots = -1;
+        int itemCount = -1;
+        if ((flags & HAS_INVENTORY) != 0) {
+            usedSlots = body.getShort() & 0xFFFF;
+            totalSlots = body.getShort() & 0xFFFF;
+            itemCount = body.getInt();
+        }
+        String name = string(body);
+        String world = string(body);
+        return new LastKnown(uuid, name, world, hasPosition, x, y, z, yaw, pitch, lastSeen,
+                usedSlots, totalSlots, itemCount);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return bytes.length > MAX_STRING_BYTES ? Arrays.copyOf(bytes, MAX_STRING_BYTES) : bytes;
+    }
+
+    private static String string(ByteBuffer body) {
+        byte[] bytes = new byte[body.get() & 0xFF];
+        body.get(bytes);
+        return bytes.length > 0 ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Last-known state of a player
+     */
+    public static final class LastKnown {
+        public final UUID uuid;
+        public final String name;
+        /** World name, null if unknown */
+        public final String world;
+        /** False if no position was ever sampled */
+        public final boolean hasPosition;
+        public final double x;
+        public final double y;
+        public final double z;
+        public final float yaw;
+        public final float pitch;
+        public final long lastSeen;
+        /** Inventory summary; all -1 if the inventory was never read */
+        public final int usedSlots;
+        public final int totalSlots;
+        public final int itemCount;
+
+        public LastKnown(UUID uuid, String name, String world, boolean hasPosition, double x, double y, double z,
+                         float yaw, float pitch, long lastSeen, int usedSlots, int totalSlots, int itemCount) {
+            this.uuid = uuid;
+            this.name = name;
+            this.world = world;
+            this.hasPosition = hasPosition;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+            this.lastSeen = lastSeen;
+            this.usedSlots = usedSlots;
+            this.totalSlots = totalSlots;
+            this.itemCount = itemCount;
+        }
+
+        public boolean hasInventory() {
+            return totalSlots >= 0;
+        }
+
+        /**
+         * This state with the parts it lacks taken from an older one
+         */
+        LastKnown merge(LastKnown previous) {
+            if (previous == null || (hasPosition && world != null && hasInventory())) {
+                return this;
+            }
+            boolean keepPosition = !hasPosition && previous.hasPosition;
+            boolean keepInventory = !hasInventory() && previous.hasInventory();
+            return new LastKnown(uuid, name != null ? name : previous.name,
+                    world != null ? world : previous.world,
+                    hasPosition || previous.hasPosition,
+                    keepPosition ? previous.x : x, keepPosition ? previous.y : y, keepPosition ? previous.z : z,
+                    keepPosition ? previous.yaw : yaw, keepPosition ? previous.pitch : pitch,
+                    Math.max(lastSeen, previous.lastSeen),
+                    keepInventory ? previous.usedSlots : usedSlots,
+                    keepInventory ? previous.totalSlots : totalSlots,
+                    keepInventory ? previous.itemCount : itemCount);
+        }
+    }
+}
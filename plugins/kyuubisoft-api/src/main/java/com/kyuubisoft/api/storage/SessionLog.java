@@ -0,0 +1,658 @@
+package com.kyuubisoft.api.storage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of player sessions with in-memory playtime aggregates.
+ *
+ * Records are appended to a memory-mapped segment file of fixed size; a full
+ * segment is sealed and a new one started. A session writes an open record on
+ * connect and a session record on disconnect, so sessions cut short by a crash
+ * are closed at the log's last write time on the next start. The type byte of
+ * a record is written after its body, so a torn write is never read back.
+ *
+ * Compaction rewrites the sealed segments into one, folding sessions older
+ * than the retention period into per-player summary records. The rewritten
+ * segment is finished with a marker before the old segments are deleted, so
+ * an interrupted compaction is either completed or discarded on start.
+ *
+ * All aggregates (playtime, session count, first and last seen) are kept in
+ * memory and rebuilt from the log on start.
+ */
+public class SessionLog {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    private static final byte END_OF_DATA = 0;
+    private static final byte OPEN = 1;
+    private static final byte SESSION = 2;
+    private static final byte SUMMARY = 3;
+    private static final byte COMPACTED = 4;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACT_SUFFIX = ".seg.tmp";
+    private static final int MAX_NAME_BYTES = 64;
+    private static final long FLUSH_SECONDS = 10;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long retentionMillis;
+
+    // Guarded by this
+    private final Map<UUID, PlayerSessions> players = new HashMap<>();
+    private final Map<String, UUID> byName = new HashMap<>();
+    private final List<Long> sealed = new ArrayList<>();
+    private long activeId;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private boolean dirty;
+
+    private ScheduledExecutorService scheduler;
+
+    public SessionLog(Path directory, int segmentBytes, int retentionDays) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(4096, segmentBytes);
+        this.retentionMillis = Math.max(1, retentionDays) * 24L * 60 * 60 * 1000;
+    }
+
+    /**
+     * Load the log, close sessions left open by a crash and start periodic
+     * flushing and compaction
+     */
+    public synchronized void start(int compactMinutes) throws IOException {
+        Files.createDirectories(directory);
+        recoverCompaction();
+
+        List<Long> ids = segmentIds();
+        long lastWrite = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            Path path = segmentPath(ids.get(i));
+            lastWrite = Math.max(lastWrite, Files.getLastModifiedTime(path).toMillis());
+            if (i < ids.size() - 1) {
+                readRecords(ByteBuffer.wrap(Files.readAllBytes(path)), this::apply);
+                sealed.add(ids.get(i));
+            }
+        }
+        openSegment(ids.isEmpty() ? 1 : ids.get(ids.size() - 1));
+        int end = readRecords(active.duplicate(), this::apply);
+        active.position(end);
+
+        int recovered = 0;
+        for (PlayerSessions player : players.values()) {
+            if (player.openStart >= 0) {
+                closeSession(player, Math.max(player.openStart, lastWrite));
+                recovered++;
+            }
+        }
+        LOGGER.info("Session log loaded: " + players.size() + " players, " + (sealed.size() + 1) + " segments"
+                + (recovered > 0 ? ", closed " + recovered + " interrupted sessions" : ""));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KyuubiSoftAPI-sessions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+        if (compactMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(this::compactQuietly, compactMinutes, compactMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Close all open sessions and flush the log
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        synchronized (this) {
+            if (active == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (PlayerSessions player : players.values()) {
+                if (player.openStart >= 0) {
+                    closeSession(player, now);
+                }
+            }
+            active.force();
+            try {
+                activeChannel.close();
+            } catch (IOException e) {
+                LOGGER.warning("Failed to close session log: " + e.getMessage());
+            }
+            active = null;
+        }
+    }
+
+    /**
+     * Record a connect. An already open session of the player is closed first.
+     */
+    public synchronized void open(UUID uuid, String name, long time) {
+        if (active == null) {
+            return;
+        }
+        PlayerSessions player = player(uuid, name);
+        if (player.openStart >= 0) {
+            closeSession(player, time);
+        }
+        append(OPEN, encode(uuid, time, 0, 0, 0, name, OPEN));
+        player.openStart = time;
+        player.seen(time);
+    }
+
+    /**
+     * Record a disconnect
+     */
+    public synchronized void close(UUID uuid, long time) {
+        PlayerSessions player = players.get(uuid);
+        if (active == null || player == null || player.openStart < 0) {
+            return;
+        }
+        closeSession(player, Math.max(time, player.openStart));
+    }
+
+    private void closeSession(PlayerSessions player, long end) {
+        append(SESSION, encode(player.uuid, player.openStart, end, 0, 0, player.name, SESSION));
+        player.addSession(player.openStart, end);
+        player.openStart = -1;
+    }
+
+    /**
+     * Aggregates of a player by name or UUID, or null if never seen
+     */
+    public synchronized Summary summary(String nameOrUuid) {
+        UUID uuid = byName.get(nameOrUuid.toLowerCase(Locale.ROOT));
+        if (uuid == null) {
+            try {
+                uuid = UUID.fromString(nameOrUuid);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        PlayerSessions player = players.get(uuid);
+        return player != null ? player.summary(System.currentTimeMillis()) : null;
+    }
+
+    /**
+     * Aggregates of all players ever seen
+     */
+    public synchronized List<Summary> summaries() {
+        long now = System.currentTimeMillis();
+        List<Summary> result = new ArrayList<>(players.size());
+        for (PlayerSessions player : players.values()) {
+            result.add(player.summary(now));
+        }
+        return result;
+    }
+
+    /**
+     * Sessions of a player within the retention period, latest first. An open
+     * session has an end of -1.
+     */
+    public synchronized List<Session> sessions(UUID uuid, int limit) {
+        PlayerSessions player = players.get(uuid);
+        List<Session> result = new ArrayList<>();
+        if (player == null) {
+            return result;
+        }
+        if (player.openStart >= 0 && limit > 0) {
+            result.add(new Session(player.openStart, -1));
+        }
+        for (int i = player.sessionLength - 2; i >= 0 && result.size() < limit; i -= 2) {
+            result.add(new Session(player.sessions[i], player.sessions[i + 1]));
+        }
+        return result;
+    }
+
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    private PlayerSessions player(UUID uuid, String name) {
+        PlayerSessions player = players.computeIfAbsent(uuid, PlayerSessions::new);
+        if (name != null && !name.equals(player.name)) {
+            if (player.name != null) {
+                byName.remove(player.name.toLowerCase(Locale.ROOT), uuid);
+            }
+            player.name = name;
+            byName.put(name.toLowerCase(Locale.ROOT), uuid);
+        }
+        return player;
+    }
+
+    /**
+     * Apply a record read from the log to the aggregates
+     */
+    private void apply(Record record) {
+        PlayerSessions player = player(record.uuid, record.name);
+        switch (record.type) {
+            case OPEN:
+                player.openStart = record.start;
+                player.seen(record.start);
+                break;
+            case SESSION:
+                if (player.openStart == record.start) {
+                    player.openStart = -1;
+                }
+                player.addSession(record.start, record.end);
+                break;
+            case SUMMARY:
+                player.archivedCount += record.count;
+                player.archivedMillis += record.millis;
+                player.seen(record.start);
+                player.seen(record.end);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Segment files
+
+    private void append(byte type, byte[] body) {
+        int position = active.position();
+        if (position + 1 + body.length >= active.capacity()) {
+            roll();
+            position = active.position();
+        }
+        // Body first, type last: a record only becomes visible once complete
+        active.put(position + 1, body);
+        active.put(position, type);
+        active.position(position + 1 + body.length);
+        dirty = true;
+    }
+
+    private void roll() {
+        active.force();
+        try {
+            activeChannel.close();
+            sealed.add(activeId);
+            openSegment(activeId + 1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start session log segment: " + e.getMessage(), e);
+        }
+    }
+
+    private void openSegment(long id) throws IOException {
+        activeId = id;
+        activeChannel = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(segmentBytes, activeChannel.size()));
+    }
+
+    private synchronized void flush() {
+        if (dirty && active != null) {
+            active.force();
+            dirty = false;
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            LOGGER.warning("Session log compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the sealed segments into one, folding expired sessions into summaries
+     */
+    public void compact() throws IOException {
+        List<Long> ids;
+        synchronized (this) {
+            if (sealed.isEmpty()) {
+                return;
+            }
+            ids = new ArrayList<>(sealed);
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+
+        // Sealed segments are immutable, so they are read and rewritten without the lock
+        Map<UUID, Record> summaries = new LinkedHashMap<>();
+        Map<String, Record> opens = new LinkedHashMap<>();
+        List<Record> kept = new ArrayList<>();
+        for (long id : ids) {
+            readRecords(ByteBuffer.wrap(Files.readAllBytes(segmentPath(id))), record -> {
+                switch (record.type) {
+                    case OPEN:
+                        opens.put(record.uuid + ":" + record.start, record);
+                        kept.add(record);
+                        break;
+                    case SESSION:
+                        Record open = opens.remove(record.uuid + ":" + record.start);
+                        if (open != null) {
+                            open.dropped = true;
+                        }
+                        if (record.end < cutoff) {
+                            fold(summaries, record.uuid, record.name, 1, record.end - record.start,
+                                    record.start, record.end);
+                        } else {
+                            kept.add(record);
+                        }
+                        break;
+                    case SUMMARY:
+                        fold(summaries, record.uuid, record.name, record.count, record.millis,
+                                record.start, record.end);
+                        break;
+                    default:
+                        break;
+                }
+            });
+        }
+
+        long target = ids.get(ids.size() - 1);
+        Path temp = directory.resolve(segmentName(target, COMPACT_SUFFIX));
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Record record : summaries.values()) {
+                write(out, record);
+            }
+            for (Record record : kept) {
+                if (!record.dropped) {
+                    write(out, record);
+                }
+            }
+            out.write(ByteBuffer.wrap(new byte[]{COMPACTED}));
+            out.force(true);
+        }
+
+        synchronized (this) {
+            finishCompaction(target);
+            sealed.removeAll(ids);
+            sealed.add(0, target);
+            for (PlayerSessions player : players.values()) {
+                player.archive(cutoff);
+            }
+        }
+        LOGGER.fine("Compacted " + ids.size() + " session log segments");
+    }
+
+    private static void fold(Map<UUID, Record> summaries, UUID uuid, String name, int count, long millis,
+                             long first, long last) {
+        Record summary = summaries.get(uuid);
+        if (summary == null) {
+            summary = new Record(SUMMARY, uuid, name, first, last);
+            summaries.put(uuid, summary);
+        }
+        summary.name = name;
+        summary.count += count;
+        summary.millis += millis;
+        summary.start = Math.min(summary.start, first);
+        summary.end = Math.max(summary.end, last);
+    }
+
+    private static void write(FileChannel out, Record record) throws IOException {
+        byte[] body = encode(record.uuid, record.start, record.end, record.count, record.millis,
+                record.name, record.type);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + body.length);
+        buffer.put(record.type).put(body).flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Complete or discard a compaction interrupted by a crash
+     */
+    private void recoverCompaction() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (!name.endsWith(COMPACT_SUFFIX)) {
+                    continue;
+                }
+                byte[] data = Files.readAllBytes(path);
+                if (data.length > 0 && data[data.length - 1] == COMPACTED) {
+                    finishCompaction(Long.parseLong(name.substring(0, name.length() - COMPACT_SUFFIX.length())));
+                } else {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace all segments up to {@code target} with its completed compaction file
+     */
+    private void finishCompaction(long target) throws IOException {
+        for (long id : segmentIds()) {
+            if (id <= target) {
+                Files.deleteIfExists(segmentPath(id));
+            }
+        }
+        Files.move(directory.resolve(segmentName(target, COMPACT_SUFFIX)), segmentPath(target),
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // Not a segment
+                        }
+                    });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(segmentName(id, SEGMENT_SUFFIX));
+    }
+
+    private static String segmentName(long id, String suffix) {
+        return String.format("%012d%s", id, suffix);
+    }
+
+    // Record encoding
+
+    private static byte[] encode(UUID uuid, long start, long end, int count, long millis, String name, byte type) {
+        byte[] nameBytes = name != null ? name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (nameBytes.length > MAX_NAME_BYTES) {
+            nameBytes = Arrays.copyOf(nameBytes, MAX_NAME_BYTES);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 8 + 8 + 4 + 8 + 1 + nameBytes.length);
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        buffer.putLong(start);
+        if (type != OPEN) {
+            buffer.putLong(end);
+        }
+        if (type == SUMMARY) {
+            buffer.putInt(count).putLong(millis);
+        }
+        buffer.put((byte) nameBytes.length).put(nameBytes);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Read records until the end of data or a truncated record
+     *
+     * @return the position after the last complete record
+     */
+    private static int readRecords(ByteBuffer buffer, Consumer<Record> consumer) {
+        int end = buffer.position();
+        try {
+            while (buffer.hasRemaining()) {
+                byte type = buffer.get();
+                if (type == END_OF_DATA || type == COMPACTED || type > COMPACTED || type < 0) {
+                    break;
+                }
+                UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+                long start = buffer.getLong();
+                long stop = type != OPEN ? buffer.getLong() : 0;
+                int count = 0;
+                long millis = 0;
+                if (type == SUMMARY) {
+                    count = buffer.getInt();
+                    millis = buffer.getLong();
+                }
+                byte[] name = new byte[buffer.get() & 0xFF];
+                buffer.get(name);
+
+                Record record = new Record(type, uuid, new String(name, StandardCharsets.UTF_8), start, stop);
+                record.count = count;
+                record.millis = millis;
+                consumer.accept(record);
+                end = buffer.position();
+            }
+        } catch (BufferUnderflowException e) {
+            // Truncated record at the end of a segment
+        }
+        return end;
+    }
+
+    private static final class Record {
+        final byte type;
+        final UUID uuid;
+        String name;
+        long start;
+        long end;
+        int count;
+        long millis;
+        // Open record whose session was closed later in the compacted range
+        boolean dropped;
+
+        Record(byte type, UUID uuid, String name, long start, long end) {
+            this.type = type;
+            this.uuid = uuid;
+            this.name = name;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Aggregates of one player. Guarded by the log's monitor.
+     */
+    private static final class PlayerSessions {
+        final UUID uuid;
+        String name;
+        long firstSeen = Long.MAX_VALUE;
+        long lastSeen;
+        // Sessions folded into summaries
+        int archivedCount;
+        long archivedMillis;
+        // Retained sessions as (start, end) pairs, oldest first
+        long[] sessions = new long[8];
+        int sessionLength;
+        long openStart = -1;
+
+        PlayerSessions(UUID uuid) {
+            this.uuid = uuid;
+        }
+
+        void seen(long time) {
+            firstSeen = Math.min(firstSeen, time);
+            lastSeen = Math.max(lastSeen, time);
+        }
+
+        void addSession(long start, long end) {
+            if (sessionLength == sessions.length) {
+                sessions = Arrays.copyOf(sessions, sessions.length * 2);
+            }
+            sessions[sessionLength++] = start;
+            sessions[sessionLength++] = end;
+            seen(start);
+            seen(end);
+        }
+
+        /**
+         * Fold sessions that ended before the cutoff into the archived totals
+         */
+        void archive(long cutoff) {
+            int kept = 0;
+            for (int i = 0; i < sessionLength; i += 2) {
+                if (sessions[i + 1] < cutoff) {
+                    archivedCount++;
+                    archivedMillis += sessions[i + 1] - sessions[i];
+                } else {
+                    sessions[kept++] = sessions[i];
+                    sessions[kept++] = sessions[i + 1];
+                }
+            }
+            sessionLength = kept;
+        }
+
+        Summary summary(long now) {
+            int count = archivedCount + sessionLength / 2;
+            long millis = archivedMillis;
+            for (int i = 0; i < sessionLength; i += 2) {
+                millis += sessions[i + 1] - sessions[i];
+            }
+            boolean online = openStart >= 0;
+            if (online) {
+                count++;
+                millis += Math.max(0, now - openStart);
+            }
+            return new Summary(uuid, name, count, millis, firstSeen, online ? now : lastSeen, online);
+        }
+    }
+
+    /**
+     * Playtime aggregates of a player
+     */
+    public static class Summary {
+        public final UUID uuid;
+        public final String name;
+        public final int sessionCount;
+        public final long playtimeMillis;
+        public final long firstSeen;
+        public final long lastSeen;
+        public final boolean online;
+
+        Summary(UUID uuid, String name, int sessionCount, long playtimeMillis, long firstSeen, long lastSeen,
+                boolean online) {
+            this.uuid = uuid;
+            this.name = name;
+            this.sessionCount = sessionCount;
+            this.playtimeMillis = playtimeMillis;
+            this.firstSeen = firstSeen;
+            this.lastSeen = lastSeen;
+            this.online = online;
+        }
+    }
+
+    /**
+     * A recorded session; {@code end} is -1 while the player is online
+     */
+    public static class Session {
+        public final long start;
+        public final long end;
+
+        Session(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
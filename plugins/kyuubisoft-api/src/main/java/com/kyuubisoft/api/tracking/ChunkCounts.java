@@ -0,0 +1,157 @@
+package com.kyuubisoft.api.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from chunk key to an int counter.
+ *
+ * Keys and values live in parallel primitive arrays (linear probing), so
+ * counting a sample never boxes or allocates unless the table grows. The
+ * table grows up to {@code maxSize} entries; beyond that new chunks are
+ * rejected. Not thread-safe.
+ */
+final class ChunkCounts {
+
+    // Never a valid key: chunk coordinates are block coordinates shifted right
+    static final long EMPTY = Long.MIN_VALUE;
+
+    private final int maxSize;
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    ChunkCounts(int maxSize) {
+        this.maxSize = maxSize;
+        allocate(16);
+    }
+
+    static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    static int chunkX(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int chunkZ(long key) {
+        return (int) key;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add to a chunk's counter.
+     *
+     * @return false if the chunk is new and the map is full
+     */
+    boolean add(long key, int delta) {
+        int index = indexOf(key);
+        if (keys[index] == key) {
+            long sum = (long) values[index] + delta;
+            values[index] = (int) Math.min(Integer.MAX_VALUE, sum);
+            return true;
+        }
+        if (size >= maxSize) {
+            return false;
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+            index = indexOf(key);
+        }
+        keys[index] = key;
+        values[index] = delta;
+        size++;
+        return true;
+    }
+
+    /**
+     * Add every counter of this map to {@code target}
+     */
+    void addTo(ChunkCounts target) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                target.add(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Halve every counter and drop the ones that reach zero
+     */
+    void halve() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int value = oldValues[i] >>> 1;
+            if (oldKeys[i] != EMPTY && value > 0) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = value;
+                size++;
+            }
+        }
+    }
+
+    void clear() {
+        if (size > 0) {
+            allocate(16);
+        }
+    }
+
+    /**
+     * Counters as flat (chunkX, chunkZ, count) triples
+     */
+    int[] toTriples() {
+        int[] triples = new int[size * 3];
+        int out = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                triples[out++] = chunkX(keys[i]);
+                triples[out++] = chunkZ(keys[i]);
+                triples[out++] = values[i];
+            }
+        }
+        return triples;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = (int) mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        size = 0;
+    }
+
+    private static long mix(long key) {
+        // Spread neighbouring chunks across the table (murmur3 finalizer)
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,182 @@
+package com.kyuubisoft.api.tracking;
+
+import com.kyuubisoft.api.state.UniverseSnapshot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-chunk player density per world, counted from sampled positions.
+ *
+ * Every {@code intervalMillis} each positioned player adds one to the counter
+ * of the chunk it stands in. Counters are kept in time buckets so windows
+ * expire without rescanning: the hour window is four 15-minute buckets, the day
+ * window twelve 2-hour buckets, and an all-time map. Every map holds at most
+ * {@code maxChunks} chunks; when the all-time map is full its counters are
+ * halved and empty chunks dropped, so rarely visited areas fade out first.
+ * A world that is no longer loaded is dropped once its day window has expired,
+ * so unloaded and instanced worlds do not accumulate.
+ */
+public class HeatmapAggregator {
+
+    /** Blocks per chunk edge */
+    public static final int CHUNK_SIZE = 32;
+    private static final int CHUNK_SHIFT = 5;
+
+    private static final long QUARTER_HOUR_MILLIS = 15 * 60 * 1000L;
+    private static final long TWO_HOURS_MILLIS = 2 * 60 * 60 * 1000L;
+    private static final int HOUR_BUCKETS = 4;
+    private static final int DAY_BUCKETS = 12;
+    // A world absent for this long has no counts left in the hour and day windows
+    private static final long EXPIRY_MILLIS = DAY_BUCKETS * TWO_HOURS_MILLIS;
+
+    public enum Window {
+        HOUR, DAY, ALL
+    }
+
+    private final long intervalMillis;
+    private final int maxChunks;
+    private final Map<String, WorldHeatmap> worlds = new ConcurrentHashMap<>();
+    private long lastSampleMillis;
+
+    public HeatmapAggregator(long intervalMillis, int maxChunks) {
+        this.intervalMillis = Math.max(1000, intervalMillis);
+        this.maxChunks = Math.max(64, maxChunks);
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Count the positions of a snapshot, at most once per interval. Called on
+     * the snapshot thread.
+     */
+    public void record(UniverseSnapshot snapshot) {
+        long time = snapshot.capturedAtMillis();
+        if (time - lastSampleMillis < intervalMillis) {
+            return;
+        }
+        lastSampleMillis = time;
+
+        for (UniverseSnapshot.WorldState world : snapshot.worlds()) {
+            WorldHeatmap heatmap = worlds.computeIfAbsent(world.name, name -> new WorldHeatmap(maxChunks));
+            synchronized (heatmap) {
+                heatmap.rotate(time);
+                heatmap.lastSampledMillis = time;
+                for (UniverseSnapshot.PlayerState player : world.players()) {
+                    if (player.hasPosition) {
+                        heatmap.add(ChunkCounts.key(chunk(player.x), chunk(player.z)));
+                    }
+                }
+            }
+        }
+        worlds.values().removeIf(heatmap -> time - heatmap.lastSampledMillis > EXPIRY_MILLIS);
+    }
+
+    private static int chunk(double coordinate) {
+        return (int) Math.floor(coordinate) >> CHUNK_SHIFT;
+    }
+
+    /**
+     * Counters of a world within a window as flat (chunkX, chunkZ, count)
+     * triples, or an empty array if nothing was recorded there
+     */
+    public int[] query(String world, Window window) {
+        WorldHeatmap heatmap = worlds.get(world);
+        if (heatmap == null) {
+            return new int[0];
+        }
+        synchronized (heatmap) {
+            return heatmap.query(window, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Buckets of one world. Guarded by its own monitor.
+     */
+    private static final class WorldHeatmap {
+        private final Buckets hour;
+        private final Buckets day;
+        private final ChunkCounts allTime;
+        // Capture time of the last snapshot the world was in; read and written on the snapshot thread
+        long lastSampledMillis;
+
+        WorldHeatmap(int maxChunks) {
+            this.hour = new Buckets(HOUR_BUCKETS, QUARTER_HOUR_MILLIS, maxChunks);
+            this.day = new Buckets(DAY_BUCKETS, TWO_HOURS_MILLIS, maxChunks);
+            this.allTime = new ChunkCounts(maxChunks);
+        }
+
+        void rotate(long time) {
+            hour.rotate(time);
+            day.rotate(time);
+        }
+
+        void add(long key) {
+            hour.current().add(key, 1);
+            day.current().add(key, 1);
+            if (!allTime.add(key, 1)) {
+                allTime.halve();
+                allTime.add(key, 1);
+            }
+        }
+
+        int[] query(Window window, long now) {
+            switch (window) {
+                case HOUR:
+                    return hour.sum(now);
+                case DAY:
+                    return day.sum(now);
+                default:
+                    return allTime.toTriples();
+            }
+        }
+    }
+
+    /**
+     * Ring of fixed-length time buckets
+     */
+    private static final class Buckets {
+        private final long bucketMillis;
+        private final ChunkCounts[] counts;
+        // Bucket number (time / bucketMillis) each slot currently holds
+        private final long[] epochs;
+        private int current;
+
+        Buckets(int count, long bucketMillis, int maxChunks) {
+            this.bucketMillis = bucketMillis;
+            this.counts = new ChunkCounts[count];
+            this.epochs = new long[count];
+            for (int i = 0; i < count; i++) {
+                counts[i] = new ChunkCounts(maxChunks);
+                epochs[i] = -1;
+            }
+        }
+
+        void rotate(long time) {
+            long epoch = time / bucketMillis;
+            int slot = (int) (epoch % counts.length);
+            if (epochs[slot] != epoch) {
+                counts[slot].clear();
+                epochs[slot] = epoch;
+            }
+            current = slot;
+        }
+
+        ChunkCounts current() {
+            return counts[current];
+        }
+
+        int[] sum(long now) {
+            long oldest = now / bucketMillis - counts.length + 1;
+            ChunkCounts sum = new ChunkCounts(Integer.MAX_VALUE);
+            for (int i = 0; i < counts.length; i++) {
+                if (epochs[i] >= oldest) {
+                    counts[i].addTo(sum);
+                }
+            }
+            return sum.toTriples();
+        }
+    }
+}
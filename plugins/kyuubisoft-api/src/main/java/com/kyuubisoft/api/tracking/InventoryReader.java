@@ -0,0 +1,156 @@
+package com.kyuubisoft.api.tracking;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads a player's inventory slots. Must run on the player's world thread.
+ *
+ * The server exposes no stable inventory API to plugins yet, so the accessors
+ * are found by name, like chat content in ParamValueExtractor: the inventory
+ * from the player (or its player component), its hotbar and storage sections
+ * (or the inventory itself as one container), each container's capacity and
+ * the item in each slot. Lookups are resolved once per class.
+ */
+final class InventoryReader {
+
+    // Upper bound on slots read from one container
+    private static final int MAX_CONTAINER_SLOTS = 256;
+
+    private static final ClassValue<Optional<Method>> INVENTORY = getter("getInventory");
+    private static final ClassValue<Optional<Method>> PLAYER = getter("getPlayer", "getPlayerComponent");
+    private static final ClassValue<Optional<Method>> HOTBAR = getter("getHotbar");
+    private static final ClassValue<Optional<Method>> STORAGE = getter("getStorage");
+    private static final ClassValue<Optional<Method>> CAPACITY = getter("getCapacity", "getSize", "size");
+    private static final ClassValue<Optional<Method>> ITEM_ID = getter("getItemId", "getId");
+    private static final ClassValue<Optional<Method>> AMOUNT = getter("getQuantity", "getAmount", "getCount");
+    private static final ClassValue<Optional<Method>> DURABILITY = getter("getDurability");
+    private static final ClassValue<Optional<Method>> MAX_DURABILITY = getter("getMaxDurability");
+    private static final ClassValue<Optional<Method>> SLOT = new ClassValue<>() {
+        @Override
+        protected Optional<Method> computeValue(Class<?> type) {
+            for (String name : new String[]{"getItemStack", "getItem", "get"}) {
+                for (Class<?> index : new Class<?>[]{int.class, short.class}) {
+                    try {
+                        Method method = type.getMethod(name, index);
+                        if (method.getReturnType() != void.class) {
+                            method.trySetAccessible();
+                            return Optional.of(method);
+                        }
+                    } catch (NoSuchMethodException | RuntimeException ignored) {
+                        // Try next
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    };
+
+    private InventoryReader() {
+    }
+
+    /**
+     * Current slots, null entries for empty slots, or null if the inventory cannot be read
+     */
+    static InventoryTracker.Slot[] read(PlayerRef player) {
+        Object inventory = call(INVENTORY, player);
+        if (inventory == null) {
+            inventory = call(INVENTORY, call(PLAYER, player));
+        }
+        if (inventory == null) {
+            return null;
+        }
+
+        List<Object> containers = new ArrayList<>(2);
+        Object hotbar = call(HOTBAR, inventory);
+        Object storage = call(STORAGE, inventory);
+        if (hotbar != null) {
+            containers.add(hotbar);
+        }
+        if (storage != null) {
+            containers.add(storage);
+        }
+        if (containers.isEmpty()) {
+            containers.add(inventory);
+        }
+
+        List<InventoryTracker.Slot> slots = new ArrayList<>(36);
+        for (Object container : containers) {
+            Method slot = SLOT.get(container.getClass()).orElse(null);
+            Object capacity = call(CAPACITY, container);
+            if (slot == null || !(capacity instanceof Number)) {
+                return null;
+            }
+            int size = Math.min(((Number) capacity).intValue(), MAX_CONTAINER_SLOTS);
+            for (int i = 0; i < size; i++) {
+                slots.add(readSlot(container, slot, i));
+            }
+        }
+        return slots.toArray(new InventoryTracker.Slot[0]);
+    }
+
+    private static InventoryTracker.Slot readSlot(Object container, Method slot, int index) {
+        Object item;
+        try {
+            item = slot.getParameterTypes()[0] == short.class
+                    ? slot.invoke(container, (short) index)
+                    : slot.invoke(container, index);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+        if (item == null) {
+            return null;
+        }
+
+        Object id = call(ITEM_ID, item);
+        int amount = intValue(call(AMOUNT, item), 1);
+        if (id == null || amount <= 0) {
+            return null;
+        }
+        return new InventoryTracker.Slot(id.toString(), amount,
+                intValue(call(DURABILITY, item), 0), intValue(call(MAX_DURABILITY, item), 0));
+    }
+
+    private static Object call(ClassValue<Optional<Method>> accessor, Object target) {
+        if (target == null) {
+            return null;
+        }
+        Method method = accessor.get(target.getClass()).orElse(null);
+        if (method == null) {
+            return null;
+        }
+        try {
+            return method.invoke(target);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static int intValue(Object value, int fallback) {
+        return value instanceof Number ? ((Number) value).intValue() : fallback;
+    }
+
+    private static ClassValue<Optional<Method>> getter(String... names) {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<Method> computeValue(Class<?> type) {
+                for (String name : names) {
+                    try {
+                        Method method = type.getMethod(name);
+                        if (method.getReturnType() != void.class) {
+                            method.trySetAccessible();
+                            return Optional.of(method);
+                        }
+                    } catch (NoSuchMethodException | RuntimeException ignored) {
+                        // Try next
+                    }
+                }
+                return Optional.empty();
+            }
+        };
+    }
+}
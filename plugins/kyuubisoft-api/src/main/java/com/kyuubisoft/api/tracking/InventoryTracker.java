@@ -0,0 +1,360 @@
+package com.kyuubisoft.api.tracking;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.kyuubisoft.api.state.ActionDispatcher;
+import com.kyuubisoft.api.state.PlayerIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Slot-level inventory snapshots of online players, with a version per change.
+ *
+ * Every {@code intervalMillis} all inventories are read on their world threads
+ * (one task per world through the ActionDispatcher) and compared slot by slot
+ * with the previous capture. A capture with changes gets a new version, its
+ * changed slots are recorded in a short per-player log and handed to the
+ * listener as a delta. Clients holding version {@code v} can ask for the slots
+ * changed since {@code v}; if the log no longer reaches back that far they get
+ * the full inventory instead.
+ *
+ * Versions come from one counter shared by all players, so a version is never
+ * reused, also not after a player rejoins.
+ */
+public class InventoryTracker {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    private final PlayerIndex playerIndex;
+    private final ActionDispatcher actionDispatcher;
+    private final Consumer<Delta> listener;
+    private final long intervalMillis;
+    private final int historySize;
+
+    private final Map<UUID, Tracked> tracked = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    // Set while a capture waits for world threads, so slow worlds do not pile up passes
+    private final AtomicBoolean capturing = new AtomicBoolean();
+    private volatile boolean unavailableLogged;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param listener    receives every delta on the tracker's thread
+     * @param historySize changes remembered per player for {@link #since}
+     */
+    public InventoryTracker(PlayerIndex playerIndex, ActionDispatcher actionDispatcher, Consumer<Delta> listener,
+                            long intervalMillis, int historySize) {
+        this.playerIndex = playerIndex;
+        this.actionDispatcher = actionDispatcher;
+        this.listener = listener;
+        this.intervalMillis = Math.max(100, intervalMillis);
+        this.historySize = Math.max(1, historySize);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KyuubiSoftAPI-inventory");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::capture, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Forget a player that left
+     */
+    public void remove(UUID player) {
+        tracked.remove(player);
+    }
+
+    /**
+     * The full inventory: every occupied slot, or null if the player is not tracked
+     */
+    public Delta current(UUID player) {
+        return since(player, -1);
+    }
+
+    /**
+     * Slots changed after {@code sinceVersion}, with their current content.
+     * If the change log does not reach back to that version the delta is full:
+     * it lists every occupied slot and all others are empty.
+     *
+     * @return the delta, or null if the player is not tracked
+     */
+    public Delta since(UUID player, long sinceVersion) {
+        Tracked state = tracked.get(player);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            if (sinceVersion == state.version) {
+                return new Delta(player, state, sinceVersion, false, Collections.emptyList());
+            }
+            long oldest = state.log.isEmpty() ? state.version : state.log.peekFirst().fromVersion;
+            if (sinceVersion < oldest || sinceVersion > state.version) {
+                List<SlotChange> occupied = new ArrayList<>();
+                for (int i = 0; i < state.slots.length; i++) {
+                    if (state.slots[i] != null) {
+                        occupied.add(new SlotChange(i, state.slots[i]));
+                    }
+                }
+                return new Delta(player, state, sinceVersion, true, occupied);
+            }
+
+            boolean[] changed = new boolean[state.slots.length];
+            for (Change change : state.log) {
+                if (change.version > sinceVersion) {
+                    for (int slot : change.slots) {
+                        if (slot < changed.length) {
+                            changed[slot] = true;
+                        }
+                    }
+                }
+            }
+            List<SlotChange> changes = new ArrayList<>();
+            for (int i = 0; i < changed.length; i++) {
+                if (changed[i]) {
+                    changes.add(new SlotChange(i, state.slots[i]));
+                }
+            }
+            return new Delta(player, state, sinceVersion, false, changes);
+        }
+    }
+
+    /**
+     * Read all online inventories on their world threads, then diff them here
+     */
+    private void capture() {
+        if (!capturing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<PlayerRef> players = new ArrayList<>(playerIndex.players());
+            Set<UUID> online = new HashSet<>(players.size() * 2);
+            for (PlayerRef player : players) {
+                online.add(player.getUuid());
+            }
+            tracked.keySet().retainAll(online);
+
+            List<CompletableFuture<Slot[]>> reads = actionDispatcher.submitAll(players, InventoryReader::read);
+            CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).handleAsync((done, error) -> {
+                try {
+                    apply(players, reads);
+                } catch (Exception e) {
+                    LOGGER.warning("Inventory capture failed: " + e.getMessage());
+                } finally {
+                    capturing.set(false);
+                }
+                return null;
+            }, scheduler);
+        } catch (RuntimeException e) {
+            capturing.set(false);
+            LOGGER.warning("Inventory capture failed: " + e.getMessage());
+        }
+    }
+
+    private void apply(List<PlayerRef> players, List<CompletableFuture<Slot[]>> reads) {
+        int unreadable = 0;
+        for (int i = 0; i < players.size(); i++) {
+            CompletableFuture<Slot[]> read = reads.get(i);
+            // Players that changed world or whose world timed out are picked up next pass
+            Slot[] slots = read.isCompletedExceptionally() ? null : read.getNow(null);
+            if (slots != null) {
+                update(players.get(i), slots);
+            } else if (!read.isCompletedExceptionally()) {
+                unreadable++;
+            }
+        }
+        if (unreadable > 0 && unreadable == players.size() && !unavailableLogged) {
+            unavailableLogged = true;
+            LOGGER.info("Player inventories are not readable on this server version; inventory endpoints stay empty");
+        }
+    }
+
+    private void update(PlayerRef player, Slot[] slots) {
+        UUID uuid = player.getUuid();
+        Tracked state = tracked.get(uuid);
+        if (state == null) {
+            // First capture is the baseline; clients fetch it with a full read. A player
+            // that left while the read was in flight is not tracked again: the index
+            // drops players before remove() runs, so checking it after the put closes the race.
+            if (playerIndex.get(uuid) == null) {
+                return;
+            }
+            Tracked baseline = new Tracked(player.getUsername(), slots, versions.incrementAndGet());
+            tracked.put(uuid, baseline);
+            if (playerIndex.get(uuid) == null) {
+                tracked.remove(uuid, baseline);
+            }
+            return;
+        }
+
+        Delta delta;
+        synchronized (state) {
+            int length = Math.max(state.slots.length, slots.length);
+            int[] changed = new int[length];
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                Slot before = i < state.slots.length ? state.slots[i] : null;
+                Slot after = i < slots.length ? slots[i] : null;
+                if (!Objects.equals(before, after)) {
+                    changed[count++] = i;
+                }
+            }
+            if (count == 0 && slots.length == state.slots.length) {
+                return;
+            }
+
+            long fromVersion = state.version;
+            state.version = versions.incrementAndGet();
+            state.slots = slots;
+            state.name = player.getUsername();
+            int[] changedSlots = Arrays.copyOf(changed, count);
+            state.log.addLast(new Change(fromVersion, state.version, changedSlots));
+            if (state.log.size() > historySize) {
+                state.log.removeFirst();
+            }
+
+            List<SlotChange> changes = new ArrayList<>(count);
+            for (int slot : changedSlots) {
+                changes.add(new SlotChange(slot, slot < slots.length ? slots[slot] : null));
+            }
+            delta = new Delta(uuid, state, fromVersion, false, changes);
+        }
+        listener.accept(delta);
+    }
+
+    /**
+     * Content of an occupied slot
+     */
+    public static final class Slot {
+        public final String itemId;
+        public final int amount;
+        public final int durability;
+        public final int maxDurability;
+
+        public Slot(String itemId, int amount, int durability, int maxDurability) {
+            this.itemId = itemId;
+            this.amount = amount;
+            this.durability = durability;
+            this.maxDurability = maxDurability;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Slot)) return false;
+            Slot other = (Slot) o;
+            return amount == other.amount && durability == other.durability
+                    && maxDurability == other.maxDurability && itemId.equals(other.itemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(itemId, amount, durability, maxDurability);
+        }
+    }
+
+    /**
+     * New content of a slot; only {@code slot} is set when it became empty
+     */
+    public static final class SlotChange {
+        public final int slot;
+        public final String itemId;
+        public final Integer amount;
+        public final Integer durability;
+        public final Integer maxDurability;
+
+        SlotChange(int slot, Slot content) {
+            this.slot = slot;
+            this.itemId = content != null ? content.itemId : null;
+            this.amount = content != null ? content.amount : null;
+            this.durability = content != null && content.maxDurability > 0 ? content.durability : null;
+            this.maxDurability = content != null && content.maxDurability > 0 ? content.maxDurability : null;
+        }
+    }
+
+    /**
+     * Changed slots of one player between two versions
+     */
+    public static final class Delta {
+        public final String uuid;
+        public final String name;
+        public final long fromVersion;
+        public final long version;
+        /** True if {@code changes} lists every occupied slot and all others are empty */
+        public final boolean full;
+        public final int totalSlots;
+        public final List<SlotChange> changes;
+
+        Delta(UUID uuid, Tracked state, long fromVersion, boolean full, List<SlotChange> changes) {
+            this(uuid, state.name, fromVersion, state.version, full, state.slots.length, changes);
+        }
+
+        private Delta(UUID uuid, String name, long fromVersion, long version, boolean full, int totalSlots,
+                      List<SlotChange> changes) {
+            this.uuid = uuid.toString();
+            this.name = name;
+            this.fromVersion = fromVersion;
+            this.version = version;
+            this.full = full;
+            this.totalSlots = totalSlots;
+            this.changes = changes;
+        }
+
+        /**
+         * Full delta of an inventory that was never captured, at version 0
+         */
+        public static Delta empty(UUID uuid, String name, long fromVersion, int totalSlots) {
+            return new Delta(uuid, name, fromVersion, 0, fromVersion != 0, totalSlots, Collections.emptyList());
+        }
+    }
+
+    private static final class Tracked {
+        String name;
+        Slot[] slots;
+        long version;
+        final ArrayDeque<Change> log = new ArrayDeque<>();
+
+        Tracked(String name, Slot[] slots, long version) {
+            this.name = name;
+            this.slots = slots;
+            this.version = version;
+        }
+    }
+
+    private static final class Change {
+        final long fromVersion;
+        final long version;
+        final int[] slots;
+
+        Change(long fromVersion, long version, int[] slots) {
+            this.fromVersion = fromVersion;
+            this.version = version;
+            this.slots = slots;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.kyuubisoft.api.tracking;
+
+import com.kyuubisoft.api.state.UniverseSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent positions of every online player, recorded from published snapshots.
+ *
+ * Each player has a fixed-size ring of arrays (time, x, y, z and a reference to
+ * the world name of the snapshot), allocated once when the player is first seen and dropped when the
+ * player leaves, so recording allocates nothing per sample. Samples equal to
+ * the previous one are skipped, so standing players do not push out history.
+ */
+public class PositionHistory {
+
+    private final int capacity;
+    private final Map<UUID, Trail> trails = new ConcurrentHashMap<>();
+
+    public PositionHistory(int capacity) {
+        this.capacity = Math.max(2, capacity);
+    }
+
+    /**
+     * Record the positions of a snapshot and release trails of players that left.
+     * Called on the snapshot thread.
+     */
+    public void record(UniverseSnapshot snapshot) {
+        long time = snapshot.capturedAtMillis();
+        Set<UUID> present = new HashSet<>(snapshot.players().size() * 2);
+        for (UniverseSnapshot.PlayerState player : snapshot.players()) {
+            present.add(player.uuid);
+            if (!player.hasPosition || player.world == null) {
+                continue;
+            }
+            trails.computeIfAbsent(player.uuid, uuid -> new Trail(capacity))
+                    .add(time, (float) player.x, (float) player.y, (float) player.z, player.world);
+        }
+        trails.keySet().retainAll(present);
+    }
+
+    /**
+     * Recorded positions of a player, oldest first.
+     *
+     * @param sinceMillis only samples after this time (epoch millis), 0 for all
+     * @param stepMillis  minimum time between returned samples, 0 for all
+     * @return the samples, or null if the player has no trail
+     */
+    public List<TrailPoint> query(UUID player, long sinceMillis, long stepMillis) {
+        Trail trail = trails.get(player);
+        return trail != null ? trail.query(sinceMillis, stepMillis) : null;
+    }
+
+    /**
+     * Ring buffer of one player's samples
+     */
+    private static final class Trail {
+        private final long[] times;
+        private final float[] xs;
+        private final float[] ys;
+        private final float[] zs;
+        // World names are shared with the snapshots, so they are released with the trail
+        private final String[] worlds;
+        private int next;
+        private int size;
+
+        Trail(int capacity) {
+            times = new long[capacity];
+            xs = new float[capacity];
+            ys = new float[capacity];
+            zs = new float[capacity];
+            worlds = new String[capacity];
+        }
+
+        synchronized void add(long time, float x, float y, float z, String world) {
+            if (size > 0) {
+                int last = (next - 1 + times.length) % times.length;
+                if (xs[last] == x && ys[last] == y && zs[last] == z && worlds[last].equals(world)) {
+                    return;
+                }
+            }
+            times[next] = time;
+            xs[next] = x;
+            ys[next] = y;
+            zs[next] = z;
+            worlds[next] = world;
+            next = (next + 1) % times.length;
+            if (size < times.length) {
+                size++;
+            }
+        }
+
+        synchronized List<TrailPoint> query(long sinceMillis, long stepMillis) {
+            List<TrailPoint> points = new ArrayList<>();
+            int start = (next - size + times.length) % times.length;
+            long lastTime = 0;
+            String lastWorld = null;
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % times.length;
+                long time = times[index];
+                if (time <= sinceMillis || (stepMillis > 0 && !points.isEmpty() && time - lastTime < stepMillis)) {
+                    continue;
+                }
+                // World name only where it changes
+                String world = !worlds[index].equals(lastWorld) ? worlds[index] : null;
+                points.add(new TrailPoint(time, xs[index], ys[index], zs[index], world));
+                lastTime = time;
+                lastWorld = worlds[index];
+            }
+            return points;
+        }
+    }
+
+    /**
+     * A recorded position. {@code world} is only set on the first point and
+     * where the world changes.
+     */
+    public static class TrailPoint {
+        public final long t;
+        public final double x;
+        public final double y;
+        public final double z;
+        public final String world;
+
+        public TrailPoint(long t, double x, double y, double z, String world) {
+            this.t = t;
+            this.x = Math.round(x * 100.0) / 100.0;
+            this.y = Math.round(y * 100.0) / 100.0;
+            this.z = Math.round(z * 100.0) / 100.0;
+            this.world = world;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.kyuubisoft.api.tracking;
+
+import com.kyuubisoft.api.state.UniverseSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid of player positions per world, rebuilt from every snapshot.
+ *
+ * Each world's grid is immutable: players sorted by cell key, with the sorted
+ * keys in a primitive array. A query visits only the cells overlapping its area
+ * (binary search per cell), so radius and box lookups cost microseconds instead
+ * of a scan over all players. A new set of grids is published atomically after
+ * each snapshot.
+ */
+public class SpatialIndex {
+
+    private final int cellSize;
+    private volatile Map<String, WorldGrid> grids = Collections.emptyMap();
+
+    public SpatialIndex(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+    }
+
+    /**
+     * Rebuild the grids from a snapshot. Called on the snapshot thread.
+     */
+    public void update(UniverseSnapshot snapshot) {
+        Map<String, WorldGrid> next = new HashMap<>(snapshot.worlds().size() * 2);
+        for (UniverseSnapshot.WorldState world : snapshot.worlds()) {
+            next.put(world.name, new WorldGrid(world.players(), cellSize));
+        }
+        grids = next;
+    }
+
+    /**
+     * Players within {@code radius} blocks of (x, z) on the horizontal plane, nearest first.
+     *
+     * @return the players, or null if the world is unknown
+     */
+    public List<UniverseSnapshot.PlayerState> near(String world, double x, double z, double radius) {
+        WorldGrid grid = grids.get(world);
+        if (grid == null) {
+            return null;
+        }
+        List<UniverseSnapshot.PlayerState> result = grid.query(x - radius, z - radius, x + radius, z + radius,
+                x, z, radius * radius);
+        result.sort((a, b) -> Double.compare(distanceSquared(a, x, z), distanceSquared(b, x, z)));
+        return result;
+    }
+
+    /**
+     * Players inside the box [minX, maxX] x [minZ, maxZ].
+     *
+     * @return the players, or null if the world is unknown
+     */
+    public List<UniverseSnapshot.PlayerState> box(String world, double minX, double minZ, double maxX, double maxZ) {
+        WorldGrid grid = grids.get(world);
+        if (grid == null) {
+            return null;
+        }
+        return grid.query(Math.min(minX, maxX), Math.min(minZ, maxZ), Math.max(minX, maxX), Math.max(minZ, maxZ),
+                0, 0, -1);
+    }
+
+    static double distanceSquared(UniverseSnapshot.PlayerState player, double x, double z) {
+        double dx = player.x - x;
+        double dz = player.z - z;
+        return dx * dx + dz * dz;
+    }
+
+    /**
+     * Grid of one world
+     */
+    private static final class WorldGrid {
+        private final int cellSize;
+        // Sorted cell key of each player, parallel to players
+        private final long[] keys;
+        private final UniverseSnapshot.PlayerState[] players;
+
+        WorldGrid(List<UniverseSnapshot.PlayerState> worldPlayers, int cellSize) {
+            this.cellSize = cellSize;
+
+            List<UniverseSnapshot.PlayerState> positioned = new ArrayList<>(worldPlayers.size());
+            for (UniverseSnapshot.PlayerState player : worldPlayers) {
+                if (player.hasPosition) {
+                    positioned.add(player);
+                }
+            }
+            positioned.sort(Comparator.comparingLong(player -> cellKey(cell(player.x), cell(player.z))));
+
+            this.players = positioned.toArray(new UniverseSnapshot.PlayerState[0]);
+            this.keys = new long[players.length];
+            for (int i = 0; i < players.length; i++) {
+                keys[i] = cellKey(cell(players[i].x), cell(players[i].z));
+            }
+        }
+
+        private int cell(double coordinate) {
+            return (int) Math.floor(coordinate / cellSize);
+        }
+
+        private static long cellKey(int cx, int cz) {
+            return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Players inside the box; if {@code radiusSquared >= 0} also within that
+         * distance of (centerX, centerZ)
+         */
+        List<UniverseSnapshot.PlayerState> query(double minX, double minZ, double maxX, double maxZ,
+                                                 double centerX, double centerZ, double radiusSquared) {
+            List<UniverseSnapshot.PlayerState> result = new ArrayList<>();
+            if (players.length == 0) {
+                return result;
+            }
+
+            long minCellX = cell(minX);
+            long maxCellX = cell(maxX);
+            long minCellZ = cell(minZ);
+            long maxCellZ = cell(maxZ);
+            long spanX = maxCellX - minCellX + 1;
+            long spanZ = maxCellZ - minCellZ + 1;
+
+            // Spans are checked separately first so the product cannot overflow
+            if (spanX > players.length || spanZ > players.length || spanX * spanZ > players.length) {
+                // Area spans more cells than there are players: checking everyone is cheaper
+                for (UniverseSnapshot.PlayerState player : players) {
+                    collect(player, minX, minZ, maxX, maxZ, centerX, centerZ, radiusSquared, result);
+                }
+                return result;
+            }
+
+            for (long cx = minCellX; cx <= maxCellX; cx++) {
+                for (long cz = minCellZ; cz <= maxCellZ; cz++) {
+                    long key = cellKey((int) cx, (int) cz);
+                    int index = Arrays.binarySearch(keys, key);
+                    if (index < 0) {
+                        continue;
+                    }
+                    // binarySearch may land anywhere within the run of equal keys
+                    while (index > 0 && keys[index - 1] == key) {
+                        index--;
+                    }
+                    for (; index < keys.length && keys[index] == key; index++) {
+                        collect(players[index], minX, minZ, maxX, maxZ, centerX, centerZ, radiusSquared, result);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static void collect(UniverseSnapshot.PlayerState player, double minX, double minZ,
+                                    double maxX, double maxZ, double centerX, double centerZ,
+                                    double radiusSquared, List<UniverseSnapshot.PlayerState> result) {
+            if (player.x < minX || player.x > maxX || player.z < minZ || player.z > maxZ) {
+                return;
+            }
+            if (radiusSquared >= 0 && distanceSquared(player, centerX, centerZ) > radiusSquared) {
+                return;
+            }
+            result.add(player);
+        }
+    }
+}
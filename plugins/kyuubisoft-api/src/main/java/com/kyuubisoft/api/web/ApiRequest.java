@@ -0,0 +1,100 @@
+package com.kyuubisoft.api.web;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.CharsetUtil;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of an HTTP request.
+ *
+ * Captured on the event loop so route handlers can run on another thread after
+ * Netty has released the original FullHttpRequest.
+ */
+public class ApiRequest {
+
+    private final HttpMethod method;
+    private final String uri;
+    private final String path;
+    private final Map<String, List<String>> query;
+    private final HttpHeaders headers;
+    private final String body;
+    private final Map<String, String> pathParams = new HashMap<>();
+
+    private ApiRequest(HttpMethod method, String uri, String path, Map<String, List<String>> query,
+                       HttpHeaders headers, String body) {
+        this.method = method;
+        this.uri = uri;
+        this.path = path;
+        this.query = query;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public static ApiRequest from(FullHttpRequest request) {
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        String body = request.content().isReadable()
+                ? request.content().toString(CharsetUtil.UTF_8)
+                : "";
+        return new ApiRequest(request.method(), request.uri(), decoder.path(), decoder.parameters(),
+                request.headers().copy(), body);
+    }
+
+    /**
+     * GET request for a path issued on behalf of another request (e.g. a batch item).
+     * Shares the parent's headers; has no body.
+     */
+    public static ApiRequest get(String uri, ApiRequest parent) {
+        QueryStringDecoder decoder = new QueryStringDecoder(uri);
+        return new ApiRequest(HttpMethod.GET, uri, decoder.path(), decoder.parameters(), parent.headers, "");
+    }
+
+    public HttpMethod method() {
+        return method;
+    }
+
+    public String uri() {
+        return uri;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    public String body() {
+        return body;
+    }
+
+    /**
+     * Path parameter captured by the matched route, or null
+     */
+    public String pathParam(String name) {
+        return pathParams.get(name);
+    }
+
+    void setPathParam(String name, String value) {
+        pathParams.put(name, value);
+    }
+
+    /**
+     * First value of a query parameter, or null
+     */
+    public String queryParam(String name) {
+        List<String> values = query.get(name);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    public Map<String, List<String>> queryParams() {
+        return Collections.unmodifiableMap(query);
+    }
+}
@@ -0,0 +1,90 @@
+package com.kyuubisoft.api.web;
+
+import com.google.gson.JsonParser;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Result of a route handler: a status and a body to serialize as JSON,
+ * or an already encoded body that is sent as is
+ */
+public class ApiResponse {
+
+    private final HttpResponseStatus status;
+    private final Object body;
+    private final ResponseCache.Entry encoded;
+    private final String cacheControl;
+
+    public ApiResponse(HttpResponseStatus status, Object body) {
+        this(status, body, null, null);
+    }
+
+    private ApiResponse(HttpResponseStatus status, Object body, ResponseCache.Entry encoded, String cacheControl) {
+        this.status = status;
+        this.body = body;
+        this.encoded = encoded;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * An encoded body, sent with its ETag and the given Cache-Control value
+     */
+    public static ApiResponse encoded(ResponseCache.Entry entry, String cacheControl) {
+        return new ApiResponse(entry.status(), null, entry, cacheControl);
+    }
+
+    public static ApiResponse ok(Object body) {
+        return new ApiResponse(HttpResponseStatus.OK, body);
+    }
+
+    public static ApiResponse error(HttpResponseStatus status, String message) {
+        return new ApiResponse(status, new ErrorResponse(status.code(), message));
+    }
+
+    public static ApiResponse error(HttpResponseStatus status) {
+        return error(status, status.reasonPhrase());
+    }
+
+    /**
+     * 200 with the body, or 404 with the message if the body is null
+     */
+    public static ApiResponse okOrNotFound(Object body, String notFoundMessage) {
+        return body != null ? ok(body) : error(HttpResponseStatus.NOT_FOUND, notFoundMessage);
+    }
+
+    public HttpResponseStatus status() {
+        return status;
+    }
+
+    /**
+     * The body; an encoded body is parsed back (only needed for batch items and ?pretty)
+     */
+    public Object body() {
+        if (encoded != null) {
+            return JsonParser.parseString(new String(encoded.body(), StandardCharsets.UTF_8));
+        }
+        return body;
+    }
+
+    public ResponseCache.Entry encoded() {
+        return encoded;
+    }
+
+    public String cacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * Error response structure
+     */
+    public static class ErrorResponse {
+        public final int status;
+        public final String error;
+
+        public ErrorResponse(int status, String error) {
+            this.status = status;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.kyuubisoft.api.web;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+
+/**
+ * Route table of the HTTP API.
+ *
+ * Path templates such as {@code /api/players/{name}/details} are compiled into a
+ * trie of path segments when routes are added, so a request is resolved with one
+ * walk over its segments instead of trying each route in turn. Literal segments
+ * take precedence over parameters.
+ *
+ * Parameters may be typed: {@code {name}} matches letters, digits, '_' and '-',
+ * {@code {id:uuid}} a UUID, {@code {n:int}} a decimal integer.
+ */
+public class ApiRouter {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    /**
+     * Where a route handler runs
+     */
+    public enum Execution {
+        /** Directly on the Netty event loop */
+        INLINE,
+        /** On the HandlerExecutor, response written back on the event loop */
+        OFFLOAD;
+
+        static Execution parse(String value, Execution fallback) {
+            if (value == null) {
+                return fallback;
+            }
+            switch (value.trim().toLowerCase()) {
+                case "inline":
+                    return INLINE;
+                case "offload":
+                    return OFFLOAD;
+                default:
+                    return fallback;
+            }
+        }
+    }
+
+    /**
+     * Accepted values of a typed path parameter
+     */
+    enum ParamType {
+        WORD, UUID, INT;
+
+        static ParamType parse(String type, String template) {
+            switch (type) {
+                case "word":
+                    return WORD;
+                case "uuid":
+                    return UUID;
+                case "int":
+                    return INT;
+                default:
+                    throw new IllegalArgumentException("Unknown parameter type '" + type + "' in " + template);
+            }
+        }
+
+        boolean accepts(String value) {
+            if (value.isEmpty()) {
+                return false;
+            }
+            switch (this) {
+                case UUID:
+                    return value.length() == 36 && isUuid(value);
+                case INT:
+                    for (int i = 0; i < value.length(); i++) {
+                        if (!Character.isDigit(value.charAt(i))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                default:
+                    for (int i = 0; i < value.length(); i++) {
+                        char c = value.charAt(i);
+                        if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                            return false;
+                        }
+                    }
+                    return true;
+            }
+        }
+
+        private static boolean isUuid(String value) {
+            for (int i = 0; i < 36; i++) {
+                char c = value.charAt(i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') {
+                        return false;
+                    }
+                } else if (Character.digit(c, 16) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RouteHandler {
+        ApiResponse handle(ApiRequest request) throws Exception;
+    }
+
+    /**
+     * Handler whose response completes later, e.g. on a world thread.
+     * It is started on the event loop and must not block.
+     */
+    @FunctionalInterface
+    public interface AsyncRouteHandler {
+        CompletableFuture<ApiResponse> handle(ApiRequest request) throws Exception;
+    }
+
+    public static class Route {
+        private final String name;
+        private final HttpMethod method;
+        private final String template;
+        private final String[] paramNames;
+        private final RouteHandler handler;
+        private final AsyncRouteHandler asyncHandler;
+        private final Match emptyMatch;
+        private Execution execution = Execution.OFFLOAD;
+        private boolean snapshot;
+        private int maxAgeSeconds = -1;
+
+        Route(String name, HttpMethod method, String template, String[] paramNames,
+              RouteHandler handler, AsyncRouteHandler asyncHandler) {
+            this.name = name;
+            this.method = method;
+            this.template = template;
+            this.paramNames = paramNames;
+            this.handler = handler;
+            this.asyncHandler = asyncHandler;
+            this.emptyMatch = paramNames.length == 0 ? new Match(this, paramNames) : null;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String template() {
+            return template;
+        }
+
+        public Execution execution() {
+            return execution;
+        }
+
+        public RouteHandler handler() {
+            return handler;
+        }
+
+        /**
+         * Whether the route completes its response asynchronously (see {@link #invokeAsync})
+         */
+        public boolean isAsync() {
+            return asyncHandler != null;
+        }
+
+        /**
+         * Run the handler; exceptions are logged and turned into a 500 response.
+         * Waits for asynchronous routes, so must not be called on the event loop for them.
+         */
+        public ApiResponse invoke(ApiRequest request) {
+            if (asyncHandler != null) {
+                return invokeAsync(request).join();
+            }
+            try {
+                return handler.handle(request);
+            } catch (Exception e) {
+                return failed(request, e);
+            }
+        }
+
+        /**
+         * Start the handler; the future never fails, errors complete it with a 500 response
+         */
+        public CompletableFuture<ApiResponse> invokeAsync(ApiRequest request) {
+            if (asyncHandler == null) {
+                return CompletableFuture.completedFuture(invoke(request));
+            }
+            try {
+                return asyncHandler.handle(request).exceptionally(e -> failed(request, e));
+            } catch (Exception e) {
+                return CompletableFuture.completedFuture(failed(request, e));
+            }
+        }
+
+        private static ApiResponse failed(ApiRequest request, Throwable e) {
+            if (e instanceof CompletionException && e.getCause() != null) {
+                e = e.getCause();
+            }
+            LOGGER.warning("Error handling request " + request.uri() + ": " + e.getMessage());
+            e.printStackTrace();
+            return ApiResponse.error(HttpResponseStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+
+        /**
+         * Whether the route returns the same view of server state to every caller
+         * (no per-request side effects), so its encoded body may be shared.
+         */
+        public boolean isSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Cache-Control max-age hint for clients, -1 if none
+         */
+        public int maxAgeSeconds() {
+            return maxAgeSeconds;
+        }
+    }
+
+    /**
+     * A resolved route with the values of its path parameters, in template order
+     */
+    public static final class Match {
+        private final Route route;
+        private final String[] paramValues;
+
+        Match(Route route, String[] paramValues) {
+            this.route = route;
+            this.paramValues = paramValues;
+        }
+
+        public Route route() {
+            return route;
+        }
+
+        public String param(String name) {
+            for (int i = 0; i < route.paramNames.length; i++) {
+                if (route.paramNames[i].equals(name)) {
+                    return paramValues[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Node {
+        final Map<String, Node> literals = new HashMap<>();
+        // Parameter children, tried in registration order after literals
+        final List<Node> params = new ArrayList<>(1);
+        ParamType paramType;
+        final Map<HttpMethod, Route> routes = new HashMap<>(2);
+        int depth;
+    }
+
+    private final Node root = new Node();
+    private final List<Route> routes = new ArrayList<>();
+
+    /**
+     * Register a route for a path template.
+     * The same name may be registered for several templates.
+     */
+    public ApiRouter add(String name, HttpMethod method, String template, RouteHandler handler) {
+        return register(name, method, template, handler, null);
+    }
+
+    /**
+     * Register a route whose handler completes its response later
+     */
+    public ApiRouter addAsync(String name, HttpMethod method, String template, AsyncRouteHandler handler) {
+        return register(name, method, template, null, handler);
+    }
+
+    private ApiRouter register(String name, HttpMethod method, String template,
+                               RouteHandler handler, AsyncRouteHandler asyncHandler) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException("Route template must start with '/': " + template);
+        }
+
+        Node node = root;
+        List<String> paramNames = new ArrayList<>();
+        for (String segment : template.substring(1).split("/", -1)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String spec = segment.substring(1, segment.length() - 1);
+                int colon = spec.indexOf(':');
+                String paramName = colon < 0 ? spec : spec.substring(0, colon);
+                ParamType type = colon < 0 ? ParamType.WORD : ParamType.parse(spec.substring(colon + 1), template);
+                paramNames.add(paramName);
+                node = paramChild(node, type);
+            } else {
+                int depth = node.depth + 1;
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+                node.depth = depth;
+            }
+        }
+
+        Route route = new Route(name, method, template, paramNames.toArray(new String[0]),
+                handler, asyncHandler);
+        if (node.routes.putIfAbsent(method, route) != null) {
+            throw new IllegalStateException("Duplicate route " + method + " " + template);
+        }
+        routes.add(route);
+        return this;
+    }
+
+    private static Node paramChild(Node node, ParamType type) {
+        for (Node child : node.params) {
+            if (child.paramType == type) {
+                return child;
+            }
+        }
+        Node child = new Node();
+        child.paramType = type;
+        child.depth = node.depth + 1;
+        node.params.add(child);
+        return child;
+    }
+
+    /**
+     * Mark all routes with the given names as snapshot routes whose content
+     * typically stays the same for {@code maxAgeSeconds}
+     */
+    public ApiRouter snapshot(int maxAgeSeconds, String... names) {
+        for (String name : names) {
+            boolean found = false;
+            for (Route route : routes) {
+                if (route.name.equals(name)) {
+                    route.snapshot = true;
+                    route.maxAgeSeconds = maxAgeSeconds;
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("Unknown route: " + name);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Apply execution modes: per-route overrides by route name, otherwise the default
+     */
+    public void configureExecution(String defaultMode, Map<String, String> overrides) {
+        Execution fallback = Execution.parse(defaultMode, Execution.OFFLOAD);
+        for (Route route : routes) {
+            String override = overrides != null ? overrides.get(route.name) : null;
+            route.execution = Execution.parse(override, fallback);
+        }
+    }
+
+    /**
+     * Find the route for a request and fill its path parameters.
+     *
+     * @return the route, or null if no route matches the method and path
+     */
+    public Route match(ApiRequest request) {
+        Match match = match(request.method(), request.path());
+        if (match == null) {
+            return null;
+        }
+        String[] names = match.route.paramNames;
+        for (int i = 0; i < names.length; i++) {
+            request.setPathParam(names[i], match.paramValues[i]);
+        }
+        return match.route;
+    }
+
+    /**
+     * Resolve a method and decoded path (without query string)
+     */
+    public Match match(HttpMethod method, String path) {
+        if (path.isEmpty() || path.charAt(0) != '/') {
+            return null;
+        }
+        // Captured parameter values by trie depth; compacted to template order on success
+        String[] captured = new String[countSegments(path)];
+        Route route = find(root, method, path, 1, captured);
+        if (route == null) {
+            return null;
+        }
+        if (route.emptyMatch != null) {
+            return route.emptyMatch;
+        }
+
+        String[] values = new String[route.paramNames.length];
+        int v = 0;
+        for (String value : captured) {
+            if (value != null) {
+                values[v++] = value;
+            }
+        }
+        return new Match(route, values);
+    }
+
+    private static Route find(Node node, HttpMethod method, String path, int start, String[] captured) {
+        if (start > path.length()) {
+            return node.routes.get(method);
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        String segment = path.substring(start, end);
+
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            Route route = find(literal, method, path, end + 1, captured);
+            if (route != null) {
+                return route;
+            }
+        }
+
+        for (Node param : node.params) {
+            if (param.paramType.accepts(segment)) {
+                captured[node.depth] = segment;
+                Route route = find(param, method, path, end + 1, captured);
+                if (route != null) {
+                    return route;
+                }
+                captured[node.depth] = null;
+            }
+        }
+        return null;
+    }
+
+    private static int countSegments(String path) {
+        int count = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public List<Route> routes() {
+        return routes;
+    }
+}
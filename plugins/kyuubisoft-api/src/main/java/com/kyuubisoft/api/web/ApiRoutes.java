@@ -0,0 +1,348 @@
+package com.kyuubisoft.api.web;
+
+import com.google.gson.Gson;
+import com.kyuubisoft.api.handlers.ChatHandler;
+import com.kyuubisoft.api.handlers.PlayersHandler;
+import com.kyuubisoft.api.handlers.PlaytimeHandler;
+import com.kyuubisoft.api.handlers.ServerHandler;
+import com.kyuubisoft.api.handlers.WorldsHandler;
+import com.kyuubisoft.api.tracking.HeatmapAggregator;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Route definitions of the HTTP API.
+ *
+ * Built once by the WebServer and shared by all connections.
+ */
+public final class ApiRoutes {
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Routes whose responses change when a player joins or leaves
+     */
+    public static final String[] PLAYER_LIST_ROUTES = {"players", "worlds", "worlds.stats", "server.info"};
+
+    // Cache-Control of content addressed by its version
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    // Upper bound for ?limit= on list endpoints
+    private static final int MAX_LIST_LIMIT = 1000;
+
+    private ApiRoutes() {
+    }
+
+    public static ApiRouter create(PlayersHandler playersHandler, WorldsHandler worldsHandler,
+                                   ServerHandler serverHandler, PlaytimeHandler playtimeHandler,
+                                   ChatHandler chatHandler, HandlerExecutor handlerExecutor,
+                                   ResponseCache responseCache, int batchMaxRequests,
+                                   int actionMaxTargets, AppearanceCache appearanceCache,
+                                   int appearanceMaxAgeSeconds) {
+        ApiRouter router = new ApiRouter();
+
+        // GET /api/players or /api/players/{world}
+        router.add("players", HttpMethod.GET, "/api/players", req ->
+                ApiResponse.ok(playersHandler.getAllPlayers()));
+        router.add("players", HttpMethod.GET, "/api/players/{world}", req ->
+                ApiResponse.ok(playersHandler.getPlayersInWorld(req.pathParam("world"))));
+
+        // GET /api/players/{name}/details
+        router.add("players.details", HttpMethod.GET, "/api/players/{name}/details", req ->
+                ApiResponse.okOrNotFound(playersHandler.getPlayerDetails(req.pathParam("name")), "Player not found"));
+
+        // GET /api/players/{name}/inventory?sinceVersion=
+        router.add("players.inventory", HttpMethod.GET, "/api/players/{name}/inventory", req -> {
+            String name = req.pathParam("name");
+            String sinceParam = req.queryParam("sinceVersion");
+            if (sinceParam == null || sinceParam.isEmpty()) {
+                return ApiResponse.okOrNotFound(playersHandler.getPlayerInventory(name), "Player not found");
+            }
+            Long sinceVersion = longParam(req, "sinceVersion", 0);
+            if (sinceVersion == null || sinceVersion < 0) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "Invalid sinceVersion");
+            }
+            return ApiResponse.okOrNotFound(playersHandler.getInventoryChanges(name, sinceVersion), "Player not found");
+        });
+
+        // GET /api/players/{name}/appearance?v= - immutable when v is the current version
+        String appearanceCacheControl = "max-age=" + appearanceMaxAgeSeconds;
+        router.add("players.appearance", HttpMethod.GET, "/api/players/{name}/appearance", req -> {
+            ResponseCache.Entry appearance = appearanceCache.get(req.pathParam("name"));
+            if (appearance == null) {
+                return ApiResponse.error(HttpResponseStatus.NOT_FOUND, "Player not found");
+            }
+            boolean versioned = AppearanceCache.version(appearance).equals(req.queryParam("v"));
+            return ApiResponse.encoded(appearance, versioned ? IMMUTABLE : appearanceCacheControl);
+        });
+
+        // GET /api/players/appearances - all online players, revalidated via ETag
+        router.add("players.appearances", HttpMethod.GET, "/api/players/appearances", req ->
+                ApiResponse.encoded(appearanceCache.all(), null));
+
+        // GET /api/players/{name}/trail?since=&step=
+        router.add("players.trail", HttpMethod.GET, "/api/players/{name}/trail", req -> {
+            Long since = longParam(req, "since", 0);
+            Long step = longParam(req, "step", 0);
+            if (since == null || step == null) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "since and step must be numbers");
+            }
+            return ApiResponse.okOrNotFound(playersHandler.getPlayerTrail(req.pathParam("name"), since, step),
+                    "Player not found");
+        });
+
+        // GET /api/players/offline?limit= - last-known state, most recently seen first
+        router.add("players.offline", HttpMethod.GET, "/api/players/offline", req -> {
+            Long limit = longParam(req, "limit", 50);
+            if (limit == null || limit < 0) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "limit must be a positive number");
+            }
+            return ApiResponse.ok(playersHandler.getOfflinePlayers((int) Math.min(limit, MAX_LIST_LIMIT)));
+        });
+
+        // GET /api/players/{name}/sessions?limit=
+        router.add("players.sessions", HttpMethod.GET, "/api/players/{name}/sessions", req -> {
+            Long limit = longParam(req, "limit", 50);
+            if (limit == null || limit < 0) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "limit must be a positive number");
+            }
+            return ApiResponse.okOrNotFound(playtimeHandler.getPlayerSessions(req.pathParam("name"),
+                    (int) Math.min(limit, MAX_LIST_LIMIT)), "Player not found");
+        });
+
+        // GET /api/worlds or /api/worlds/{name}
+        router.add("worlds", HttpMethod.GET, "/api/worlds", req ->
+                ApiResponse.ok(worldsHandler.getAllWorlds()));
+        router.add("worlds", HttpMethod.GET, "/api/worlds/{name}", req ->
+                ApiResponse.okOrNotFound(worldsHandler.getWorld(req.pathParam("name")), "World not found"));
+
+        // GET /api/worlds/{name}/stats
+        router.add("worlds.stats", HttpMethod.GET, "/api/worlds/{name}/stats", req ->
+                ApiResponse.okOrNotFound(worldsHandler.getWorldStats(req.pathParam("name")), "World not found"));
+
+        // GET /api/worlds/{name}/players/near?x=&z=&r=
+        router.add("worlds.players.near", HttpMethod.GET, "/api/worlds/{name}/players/near", req -> {
+            Double x = doubleParam(req, "x");
+            Double z = doubleParam(req, "z");
+            Double r = doubleParam(req, "r");
+            if (x == null || z == null || r == null || r < 0) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "x, z and r (>= 0) are required");
+            }
+            return ApiResponse.okOrNotFound(worldsHandler.getPlayersNear(req.pathParam("name"), x, z, r),
+                    "World not found");
+        });
+
+        // GET /api/worlds/{name}/players/box?minX=&minZ=&maxX=&maxZ=
+        router.add("worlds.players.box", HttpMethod.GET, "/api/worlds/{name}/players/box", req -> {
+            Double minX = doubleParam(req, "minX");
+            Double minZ = doubleParam(req, "minZ");
+            Double maxX = doubleParam(req, "maxX");
+            Double maxZ = doubleParam(req, "maxZ");
+            if (minX == null || minZ == null || maxX == null || maxZ == null) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "minX, minZ, maxX and maxZ are required");
+            }
+            return ApiResponse.okOrNotFound(worldsHandler.getPlayersInBox(req.pathParam("name"), minX, minZ, maxX, maxZ),
+                    "World not found");
+        });
+
+        // GET /api/worlds/{name}/heatmap?window=hour|day|all
+        router.add("worlds.heatmap", HttpMethod.GET, "/api/worlds/{name}/heatmap", req -> {
+            String window = req.queryParam("window");
+            HeatmapAggregator.Window parsed;
+            try {
+                parsed = window == null || window.isEmpty() ? HeatmapAggregator.Window.HOUR
+                        : HeatmapAggregator.Window.valueOf(window.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "window must be hour, day or all");
+            }
+            return ApiResponse.okOrNotFound(worldsHandler.getHeatmap(req.pathParam("name"), parsed),
+                    "World not found");
+        });
+
+        // GET /api/stats/playtime?limit=
+        router.add("stats.playtime", HttpMethod.GET, "/api/stats/playtime", req -> {
+            Long limit = longParam(req, "limit", 10);
+            if (limit == null || limit < 0) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "limit must be a positive number");
+            }
+            return ApiResponse.ok(playtimeHandler.getPlaytimeStats((int) Math.min(limit, MAX_LIST_LIMIT)));
+        });
+
+        // GET /api/chat?q=&player=&since=&limit=
+        router.add("chat", HttpMethod.GET, "/api/chat", req -> {
+            Long since = longParam(req, "since", 0);
+            Long limit = longParam(req, "limit", 50);
+            if (since == null || limit == null || limit < 0) {
+                return ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "since and limit must be numbers");
+            }
+            return ApiResponse.ok(chatHandler.search(req.queryParam("q"), req.queryParam("player"), since,
+                    (int) Math.min(limit, MAX_LIST_LIMIT)));
+        });
+
+        // GET /api/server/info, /performance, /memory
+        router.add("server.info", HttpMethod.GET, "/api/server/info", req ->
+                ApiResponse.ok(serverHandler.getServerInfo()));
+        router.add("server.performance", HttpMethod.GET, "/api/server/performance", req ->
+                ApiResponse.ok(serverHandler.getPerformance()));
+        router.add("server.memory", HttpMethod.GET, "/api/server/memory", req ->
+                ApiResponse.ok(serverHandler.getMemory()));
+
+        // GET /api/server/metrics - API internals
+        router.add("server.metrics", HttpMethod.GET, "/api/server/metrics", req -> {
+            ApiMetrics metrics = new ApiMetrics();
+            metrics.executor = handlerExecutor.stats();
+            metrics.responseCache = responseCache.stats();
+            return ApiResponse.ok(metrics);
+        });
+
+        // POST /api/players/{name}/heal
+        router.addAsync("players.heal", HttpMethod.POST, "/api/players/{name}/heal", req ->
+                playersHandler.healPlayer(req.pathParam("name")).thenApply(ApiResponse::ok));
+
+        // POST /api/players/{name}/respawn
+        router.addAsync("players.respawn", HttpMethod.POST, "/api/players/{name}/respawn", req ->
+                playersHandler.respawnPlayer(req.pathParam("name")).thenApply(ApiResponse::ok));
+
+        // POST /api/players/{name}/kill
+        router.addAsync("players.kill", HttpMethod.POST, "/api/players/{name}/kill", req ->
+                playersHandler.killPlayer(req.pathParam("name")).thenApply(ApiResponse::ok));
+
+        // POST /api/players/{name}/teleport
+        router.addAsync("players.teleport", HttpMethod.POST, "/api/players/{name}/teleport", req -> {
+            String playerName = req.pathParam("name");
+            TeleportRequest teleportReq = GSON.fromJson(req.body(), TeleportRequest.class);
+            if (teleportReq != null) {
+                return playersHandler.teleportPlayer(playerName,
+                        teleportReq.x, teleportReq.y, teleportReq.z, teleportReq.target).thenApply(ApiResponse::ok);
+            }
+            return playersHandler.teleportPlayer(playerName, null, null, null, null).thenApply(ApiResponse::ok);
+        });
+
+        // POST /api/players/{name}/gamemode
+        router.addAsync("players.gamemode", HttpMethod.POST, "/api/players/{name}/gamemode", req -> {
+            GamemodeRequest gamemodeReq = GSON.fromJson(req.body(), GamemodeRequest.class);
+            if (gamemodeReq == null || gamemodeReq.gamemode == null) {
+                return CompletableFuture.completedFuture(
+                        ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "Gamemode required"));
+            }
+            return playersHandler.setGamemode(req.pathParam("name"), gamemodeReq.gamemode).thenApply(ApiResponse::ok);
+        });
+
+        // POST /api/players/{name}/inventory/clear
+        router.addAsync("players.inventory.clear", HttpMethod.POST, "/api/players/{name}/inventory/clear", req ->
+                playersHandler.clearInventory(req.pathParam("name")).thenApply(ApiResponse::ok));
+
+        // POST /api/players/actions - one action for many players
+        router.addAsync("players.actions", HttpMethod.POST, "/api/players/actions", req -> {
+            BulkActionRequest bulkReq = GSON.fromJson(req.body(), BulkActionRequest.class);
+            if (bulkReq == null || bulkReq.action == null || bulkReq.targets == null || bulkReq.targets.isEmpty()) {
+                return CompletableFuture.completedFuture(ApiResponse.error(HttpResponseStatus.BAD_REQUEST,
+                        "Expected {\"action\": ..., \"targets\": [...]}"));
+            }
+            if (bulkReq.targets.size() > actionMaxTargets) {
+                return CompletableFuture.completedFuture(ApiResponse.error(HttpResponseStatus.BAD_REQUEST,
+                        "Too many targets (max " + actionMaxTargets + ")"));
+            }
+            if (bulkReq.targets.contains(null)) {
+                return CompletableFuture.completedFuture(
+                        ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "Invalid target"));
+            }
+            if (bulkReq.action.equals("gamemode") && bulkReq.gamemode == null) {
+                return CompletableFuture.completedFuture(
+                        ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "Gamemode required"));
+            }
+            CompletableFuture<PlayersHandler.BulkActionResult> result = playersHandler.runBulkAction(bulkReq.action,
+                    bulkReq.targets, bulkReq.x, bulkReq.y, bulkReq.z, bulkReq.target, bulkReq.gamemode);
+            if (result == null) {
+                return CompletableFuture.completedFuture(
+                        ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "Unknown action: " + bulkReq.action));
+            }
+            return result.thenApply(ApiResponse::ok);
+        });
+
+        // POST /api/batch - several GET paths in one round-trip
+        BatchHandler batchHandler = new BatchHandler(router, handlerExecutor, batchMaxRequests);
+        router.add("batch", HttpMethod.POST, "/api/batch", batchHandler::handle);
+
+        // Read-only views of server state, identical for every caller.
+        // max-age reflects how often they change: positions and memory constantly,
+        // world lists and server info only on joins, leaves and world loads.
+        router.snapshot(1, "players", "server.memory", "server.performance");
+        router.snapshot(5, "worlds", "worlds.stats", "server.info");
+
+        return router;
+    }
+
+    /**
+     * Numeric query parameter, the default if absent, or null if malformed
+     */
+    private static Long longParam(ApiRequest request, String name, long defaultValue) {
+        String value = request.queryParam(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finite numeric query parameter, or null if absent or malformed
+     */
+    private static Double doubleParam(ApiRequest request, String name) {
+        String value = request.queryParam(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            return Double.isFinite(parsed) ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Metrics of the API server itself
+     */
+    public static class ApiMetrics {
+        public HandlerExecutor.Stats executor;
+        public ResponseCache.Stats responseCache;
+    }
+
+    /**
+     * Request body for teleport
+     */
+    private static class TeleportRequest {
+        public Double x;
+        public Double y;
+        public Double z;
+        public String target;
+    }
+
+    /**
+     * Request body for gamemode
+     */
+    private static class GamemodeRequest {
+        public String gamemode;
+    }
+
+    /**
+     * Request body for bulk actions; the optional fields are those of the single-player actions
+     */
+    private static class BulkActionRequest {
+        public String action;
+        public List<String> targets;
+        public Double x;
+        public Double y;
+        public Double z;
+        public String target;
+        public String gamemode;
+    }
+}
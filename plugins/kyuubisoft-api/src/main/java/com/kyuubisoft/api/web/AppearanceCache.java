@@ -0,0 +1,139 @@
+package com.kyuubisoft.api.web;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.kyuubisoft.api.handlers.PlayersHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized player appearances, one entry per online player.
+ *
+ * An appearance is encoded and hashed once and then served as the same bytes
+ * (and the same compressed variants) until it is invalidated on connect,
+ * disconnect or an appearance change. The hash doubles as the appearance's
+ * version: a request carrying the current version in {@code ?v=} names content
+ * that can never change and may be cached by clients forever.
+ *
+ * The list of all online appearances is assembled from the per-player bytes
+ * and kept until any player's entry changes.
+ */
+public class AppearanceCache {
+
+    private final PlayersHandler playersHandler;
+    private final Map<UUID, ResponseCache.Entry> entries = new ConcurrentHashMap<>();
+    // Bumped whenever an entry is added or dropped; the list is rebuilt when it moved
+    private final AtomicLong generation = new AtomicLong();
+    private volatile AppearanceList list;
+
+    public AppearanceCache(PlayersHandler playersHandler) {
+        this.playersHandler = playersHandler;
+    }
+
+    /**
+     * The encoded appearance of an online player, or null if the player is not online
+     */
+    public ResponseCache.Entry get(String playerName) {
+        PlayerRef player = playersHandler.findPlayer(playerName);
+        return player != null ? get(player) : null;
+    }
+
+    private ResponseCache.Entry get(PlayerRef player) {
+        ResponseCache.Entry entry = entries.get(player.getUuid());
+        if (entry != null) {
+            return entry;
+        }
+        return entries.computeIfAbsent(player.getUuid(), uuid -> {
+            generation.incrementAndGet();
+            return encode("players.appearance", playersHandler.getPlayerAppearance(player));
+        });
+    }
+
+    /**
+     * Appearances of all online players as one encoded list
+     */
+    public ResponseCache.Entry all() {
+        // Read first: entries created below move it past this list, so it is rebuilt once more
+        long current = generation.get();
+        List<PlayerRef> players = new ArrayList<>(playersHandler.onlinePlayers());
+        List<ResponseCache.Entry> members = new ArrayList<>(players.size());
+        for (PlayerRef player : players) {
+            members.add(get(player));
+        }
+
+        AppearanceList cached = list;
+        if (cached != null && cached.generation == current && cached.size == members.size()) {
+            return cached.entry;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + members.size() * 256);
+        write(out, "{\"count\":" + members.size() + ",\"players\":[");
+        for (int i = 0; i < members.size(); i++) {
+            ResponseCache.Entry member = members.get(i);
+            write(out, (i > 0 ? "," : "") + "{\"version\":\"" + version(member) + "\",\"appearance\":");
+            out.writeBytes(member.body());
+            out.write('}');
+        }
+        write(out, "]}");
+
+        ResponseCache.Entry entry = new ResponseCache.Entry("players.appearances", HttpResponseStatus.OK,
+                out.toByteArray(), Long.MAX_VALUE);
+        // Built from a generation that moved in the meantime: served now, rebuilt next time
+        list = new AppearanceList(entry, current, members.size());
+        return entry;
+    }
+
+    /**
+     * Drop a player's entry after connect, disconnect or an appearance change.
+     * The next request encodes the appearance again.
+     */
+    public void invalidate(UUID player) {
+        if (entries.remove(player) != null) {
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Version of an encoded appearance, as used in {@code ?v=} and the list
+     */
+    public static String version(ResponseCache.Entry entry) {
+        String etag = EntityTags.of(entry.hash(), null);
+        return etag.substring(1, etag.length() - 1);
+    }
+
+    private static ResponseCache.Entry encode(String routeName, Object value) {
+        ByteBuf content = JsonEncoder.encode(UnpooledByteBufAllocator.DEFAULT, value, false);
+        try {
+            return new ResponseCache.Entry(routeName, HttpResponseStatus.OK, ByteBufUtil.getBytes(content),
+                    Long.MAX_VALUE);
+        } finally {
+            content.release();
+        }
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class AppearanceList {
+        final ResponseCache.Entry entry;
+        final long generation;
+        final int size;
+
+        AppearanceList(ResponseCache.Entry entry, long generation, int size) {
+            this.entry = entry;
+            this.generation = generation;
+            this.size = size;
+        }
+    }
+}
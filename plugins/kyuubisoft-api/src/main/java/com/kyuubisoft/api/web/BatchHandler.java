@@ -0,0 +1,138 @@
+package com.kyuubisoft.api.web;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * POST /api/batch - runs several GET paths through the route table in one request.
+ *
+ * Accepts a JSON array of paths (or {@code {"requests": [...]}}) and returns an
+ * array with one result per path, in request order, each with its own status.
+ *
+ * Items run in parallel: the calling thread and a few helper tasks on the
+ * HandlerExecutor claim items from a shared index. The caller keeps claiming
+ * until all items are taken, so a batch completes even when no helper gets a
+ * thread, and a saturated executor cannot deadlock on batches waiting for
+ * their own items.
+ */
+public class BatchHandler {
+
+    // Helper tasks per batch, besides the calling thread
+    private static final int MAX_HELPERS = 7;
+
+    private final ApiRouter router;
+    private final HandlerExecutor handlerExecutor;
+    private final int maxRequests;
+
+    public BatchHandler(ApiRouter router, HandlerExecutor handlerExecutor, int maxRequests) {
+        this.router = router;
+        this.handlerExecutor = handlerExecutor;
+        this.maxRequests = Math.max(1, maxRequests);
+    }
+
+    public ApiResponse handle(ApiRequest request) throws InterruptedException {
+        List<String> paths = parsePaths(request.body());
+        if (paths == null) {
+            return ApiResponse.error(HttpResponseStatus.BAD_REQUEST,
+                    "Expected a JSON array of GET paths or {\"requests\": [...]}");
+        }
+        if (paths.size() > maxRequests) {
+            return ApiResponse.error(HttpResponseStatus.BAD_REQUEST,
+                    "Too many requests in batch (max " + maxRequests + ")");
+        }
+
+        BatchResult[] results = new BatchResult[paths.size()];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(paths.size());
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < results.length) {
+                try {
+                    results[index] = run(paths.get(index), request);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        if (handlerExecutor != null) {
+            int helpers = Math.min(MAX_HELPERS, paths.size() - 1);
+            for (int i = 0; i < helpers; i++) {
+                if (!handlerExecutor.submit(worker)) {
+                    break;
+                }
+            }
+        }
+        worker.run();
+        done.await();
+
+        return ApiResponse.ok(results);
+    }
+
+    private BatchResult run(String path, ApiRequest parent) {
+        if (path == null || !path.startsWith("/api/")) {
+            return new BatchResult(path, ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "Invalid path"));
+        }
+
+        ApiRequest itemRequest;
+        try {
+            itemRequest = ApiRequest.get(path, parent);
+        } catch (IllegalArgumentException e) {
+            return new BatchResult(path, ApiResponse.error(HttpResponseStatus.BAD_REQUEST, "Invalid path"));
+        }
+        ApiRouter.Route route = router.match(itemRequest);
+        if (route == null) {
+            return new BatchResult(path, ApiResponse.error(HttpResponseStatus.NOT_FOUND,
+                    "Endpoint not found: " + itemRequest.path()));
+        }
+        return new BatchResult(path, route.invoke(itemRequest));
+    }
+
+    /**
+     * Paths of a batch body, or null if the body is malformed
+     */
+    private static List<String> parsePaths(String body) {
+        JsonElement root;
+        try {
+            root = JsonParser.parseString(body);
+        } catch (JsonParseException e) {
+            return null;
+        }
+        if (root.isJsonObject()) {
+            root = root.getAsJsonObject().get("requests");
+        }
+        if (root == null || !root.isJsonArray()) {
+            return null;
+        }
+
+        JsonArray array = root.getAsJsonArray();
+        List<String> paths = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            paths.add(element.isJsonPrimitive() ? element.getAsString() : null);
+        }
+        return paths;
+    }
+
+    /**
+     * Result of one batch item
+     */
+    public static class BatchResult {
+        public String path;
+        public int status;
+        public Object body;
+
+        public BatchResult(String path, ApiResponse response) {
+            this.path = path;
+            this.status = response.status().code();
+            this.body = response.body();
+        }
+    }
+}
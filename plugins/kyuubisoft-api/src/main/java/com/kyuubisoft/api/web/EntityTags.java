@@ -0,0 +1,57 @@
+package com.kyuubisoft.api.web;
+
+/**
+ * Strong ETags from response content hashes and If-None-Match evaluation
+ */
+public final class EntityTags {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Hash bytes kept in the tag (128 bits)
+    private static final int TAG_BYTES = 16;
+
+    private EntityTags() {
+    }
+
+    /**
+     * Strong ETag from the SHA-256 hash of an uncompressed body. Each content
+     * encoding is a separate representation and gets its own suffix.
+     *
+     * @param encoding content encoding the body is sent with, or null
+     */
+    public static String of(byte[] hash, String encoding) {
+        StringBuilder tag = new StringBuilder(TAG_BYTES * 2 + 12);
+        tag.append('"');
+        for (int i = 0; i < TAG_BYTES && i < hash.length; i++) {
+            tag.append(HEX[(hash[i] >> 4) & 0xF]).append(HEX[hash[i] & 0xF]);
+        }
+        if (encoding != null) {
+            tag.append('-').append(encoding);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Whether an If-None-Match header value matches the current tag.
+     * Uses weak comparison as required for If-None-Match.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String value = ifNoneMatch.trim();
+        if (value.equals("*")) {
+            return true;
+        }
+        for (String candidate : value.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package com.kyuubisoft.api.web;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Bounded executor for route handlers that must not run on the Netty event loops.
+ *
+ * Uses virtual or platform threads with a fixed concurrency limit and a bounded
+ * queue; submissions beyond the queue capacity are rejected instead of piling up.
+ */
+public class HandlerExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final boolean virtualThreads;
+    private final LongAdder rejected = new LongAdder();
+
+    public HandlerExecutor(String mode, int threads, int queueCapacity) {
+        this.virtualThreads = !"platform".equalsIgnoreCase(mode);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        int poolSize = Math.max(1, threads);
+
+        ThreadFactory factory;
+        if (virtualThreads) {
+            factory = Thread.ofVirtual().name("kyuubi-api-handler-", 0).factory();
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            factory = runnable -> {
+                Thread thread = new Thread(runnable, "kyuubi-api-handler-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        LOGGER.info("Handler executor: " + poolSize + (virtualThreads ? " virtual" : " platform")
+                + " threads, queue capacity " + this.queueCapacity);
+    }
+
+    /**
+     * Run a task on the executor.
+     *
+     * @return false if the queue is full and the task was rejected
+     */
+    public boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public Stats stats() {
+        Stats stats = new Stats();
+        stats.threadType = virtualThreads ? "virtual" : "platform";
+        stats.maxThreads = executor.getMaximumPoolSize();
+        stats.activeThreads = executor.getActiveCount();
+        stats.queueDepth = executor.getQueue().size();
+        stats.queueCapacity = queueCapacity;
+        stats.completedTasks = executor.getCompletedTaskCount();
+        stats.rejectedTasks = rejected.sum();
+        return stats;
+    }
+
+    public static class Stats {
+        public String threadType;
+        public int maxThreads;
+        public int activeThreads;
+        public int queueDepth;
+        public int queueCapacity;
+        public long completedTasks;
+        public long rejectedTasks;
+    }
+}
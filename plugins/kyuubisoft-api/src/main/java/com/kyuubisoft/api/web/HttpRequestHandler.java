@@ -1,53 +1,65 @@
 package com.kyuubisoft.api.web;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.kyuubisoft.api.KyuubiSoftAPI;
-import com.kyuubisoft.api.handlers.PlayersHandler;
-import com.kyuubisoft.api.handlers.ServerHandler;
-import com.kyuubisoft.api.handlers.WorldsHandler;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
-import io.netty.util.CharsetUtil;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * Handles HTTP requests and routes them to appropriate handlers
+ * Handles HTTP requests and routes them to appropriate handlers.
+ *
+ * Routes run either inline on the event loop or on the HandlerExecutor; async
+ * routes (player actions) are started inline and complete on a world thread
+ * without ever blocking the event loop. Responses
+ * are always written on the event loop in request order, so pipelined requests
+ * are answered in order even when offloaded handlers finish out of order.
+ * Snapshot routes are served through the ResponseCache, which also coalesces
+ * identical concurrent requests into one computation.
  */
 public class HttpRequestHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
     private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-
-    // Route patterns - GET
-    private static final Pattern PLAYERS_PATTERN = Pattern.compile("^/api/players(?:/([\\w-]+))?$");
-    private static final Pattern PLAYER_DETAILS_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/details$");
-    private static final Pattern PLAYER_INVENTORY_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/inventory$");
-    private static final Pattern PLAYER_APPEARANCE_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/appearance$");
-    private static final Pattern WORLDS_PATTERN = Pattern.compile("^/api/worlds(?:/([\\w-]+))?$");
-    private static final Pattern WORLD_STATS_PATTERN = Pattern.compile("^/api/worlds/([\\w-]+)/stats$");
-    private static final Pattern SERVER_INFO_PATTERN = Pattern.compile("^/api/server/info$");
-    private static final Pattern SERVER_PERFORMANCE_PATTERN = Pattern.compile("^/api/server/performance$");
-    private static final Pattern SERVER_MEMORY_PATTERN = Pattern.compile("^/api/server/memory$");
-
-    // Route patterns - POST (Player Actions)
-    private static final Pattern PLAYER_HEAL_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/heal$");
-    private static final Pattern PLAYER_RESPAWN_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/respawn$");
-    private static final Pattern PLAYER_KILL_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/kill$");
-    private static final Pattern PLAYER_TELEPORT_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/teleport$");
-    private static final Pattern PLAYER_GAMEMODE_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/gamemode$");
-    private static final Pattern PLAYER_INVENTORY_CLEAR_PATTERN = Pattern.compile("^/api/players/([\\w-]+)/inventory/clear$");
-
-    private final PlayersHandler playersHandler = new PlayersHandler();
-    private final WorldsHandler worldsHandler = new WorldsHandler();
-    private final ServerHandler serverHandler = new ServerHandler();
+
+    private static final ApiResponse SERVER_BUSY =
+            ApiResponse.error(HttpResponseStatus.SERVICE_UNAVAILABLE, "Server busy, try again");
+
+    /**
+     * Pipeline name of the idle-timeout handler installed by WebServer
+     */
+    public static final String IDLE_HANDLER_NAME = "idleState";
+
+    private final ApiRouter router;
+    private final HandlerExecutor handlerExecutor;
+    private final ResponseCompressor compressor;
+    private final ResponseCache responseCache;
+    private final boolean keepAliveEnabled;
+
+    // Response ordering state, only touched on the channel's event loop
+    private long nextRequestSeq;
+    private long nextWriteSeq;
+    private final Map<Long, FullHttpResponse> pendingResponses = new HashMap<>();
+    // Set once the channel is inactive; later responses are released instead of written
+    private boolean closed;
+
+    public HttpRequestHandler(ApiRouter router, HandlerExecutor handlerExecutor, ResponseCompressor compressor,
+                              ResponseCache responseCache, boolean keepAliveEnabled) {
+        this.router = router;
+        this.handlerExecutor = handlerExecutor;
+        this.compressor = compressor;
+        this.responseCache = responseCache;
+        this.keepAliveEnabled = keepAliveEnabled;
+    }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
@@ -57,187 +69,321 @@ public class HttpRequestHandler extends SimpleChannelInboundHandler<FullHttpRequ
             return;
         }
 
-        String uri = request.uri();
-        Object response = null;
-        HttpResponseStatus status = HttpResponseStatus.OK;
+        long seq = nextRequestSeq++;
 
-        try {
-            // Route the request based on HTTP method
-            Matcher matcher;
-
-            // Handle POST requests (Player Actions)
-            if (request.method() == HttpMethod.POST) {
-                // POST /api/players/{name}/heal
-                if ((matcher = PLAYER_HEAL_PATTERN.matcher(uri)).matches()) {
-                    String playerName = matcher.group(1);
-                    response = playersHandler.healPlayer(playerName);
-                }
-                // POST /api/players/{name}/respawn
-                else if ((matcher = PLAYER_RESPAWN_PATTERN.matcher(uri)).matches()) {
-                    String playerName = matcher.group(1);
-                    response = playersHandler.respawnPlayer(playerName);
-                }
-                // POST /api/players/{name}/kill
-                else if ((matcher = PLAYER_KILL_PATTERN.matcher(uri)).matches()) {
-                    String playerName = matcher.group(1);
-                    response = playersHandler.killPlayer(playerName);
-                }
-                // POST /api/players/{name}/teleport
-                else if ((matcher = PLAYER_TELEPORT_PATTERN.matcher(uri)).matches()) {
-                    String playerName = matcher.group(1);
-                    // Parse JSON body for teleport parameters
-                    String body = request.content().toString(CharsetUtil.UTF_8);
-                    TeleportRequest teleportReq = GSON.fromJson(body, TeleportRequest.class);
-                    if (teleportReq != null) {
-                        response = playersHandler.teleportPlayer(playerName, teleportReq.x, teleportReq.y, teleportReq.z, teleportReq.target);
-                    } else {
-                        response = playersHandler.teleportPlayer(playerName, null, null, null, null);
-                    }
-                }
-                // POST /api/players/{name}/gamemode
-                else if ((matcher = PLAYER_GAMEMODE_PATTERN.matcher(uri)).matches()) {
-                    String playerName = matcher.group(1);
-                    String body = request.content().toString(CharsetUtil.UTF_8);
-                    GamemodeRequest gamemodeReq = GSON.fromJson(body, GamemodeRequest.class);
-                    if (gamemodeReq != null && gamemodeReq.gamemode != null) {
-                        response = playersHandler.setGamemode(playerName, gamemodeReq.gamemode);
-                    } else {
-                        sendError(ctx, HttpResponseStatus.BAD_REQUEST, "Gamemode required");
-                        return;
-                    }
-                }
-                // POST /api/players/{name}/inventory/clear
-                else if ((matcher = PLAYER_INVENTORY_CLEAR_PATTERN.matcher(uri)).matches()) {
-                    String playerName = matcher.group(1);
-                    response = playersHandler.clearInventory(playerName);
-                }
-                else {
-                    sendError(ctx, HttpResponseStatus.NOT_FOUND, "POST endpoint not found: " + uri);
-                    return;
-                }
+        // Handle OPTIONS requests (CORS preflight)
+        if (request.method() == HttpMethod.OPTIONS) {
+            complete(ctx, seq, createCorsResponse(), false);
+            return;
+        }
 
-                sendJson(ctx, response, status);
-                return;
-            }
+        ApiRequest apiRequest = ApiRequest.from(request);
+        ApiRouter.Route route = router.match(apiRequest);
 
-            // Handle OPTIONS requests (CORS preflight)
-            if (request.method() == HttpMethod.OPTIONS) {
-                sendCorsResponse(ctx);
-                return;
-            }
+        if (route == null) {
+            complete(ctx, seq, createJsonResponse(ctx.alloc(), notFound(apiRequest), apiRequest), false);
+            return;
+        }
 
-            // Only handle GET requests for info endpoints
-            if (request.method() != HttpMethod.GET) {
-                sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
-                return;
-            }
+        if (route.isSnapshot()) {
+            serveSnapshot(ctx, seq, route, apiRequest);
+            return;
+        }
 
-            // GET /api/players or /api/players/{world}
-            if ((matcher = PLAYERS_PATTERN.matcher(uri)).matches()) {
-                String world = matcher.group(1);
-                response = (world != null)
-                        ? playersHandler.getPlayersInWorld(world)
-                        : playersHandler.getAllPlayers();
-            }
-            // GET /api/players/{name}/details
-            else if ((matcher = PLAYER_DETAILS_PATTERN.matcher(uri)).matches()) {
-                String playerName = matcher.group(1);
-                response = playersHandler.getPlayerDetails(playerName);
-                if (response == null) {
-                    sendError(ctx, HttpResponseStatus.NOT_FOUND, "Player not found");
-                    return;
-                }
-            }
-            // GET /api/players/{name}/inventory
-            else if ((matcher = PLAYER_INVENTORY_PATTERN.matcher(uri)).matches()) {
-                String playerName = matcher.group(1);
-                response = playersHandler.getPlayerInventory(playerName);
-                if (response == null) {
-                    sendError(ctx, HttpResponseStatus.NOT_FOUND, "Player not found");
-                    return;
-                }
+        if (route.isAsync()) {
+            // Started here, completed elsewhere (e.g. on a world thread); written back on the event loop
+            route.invokeAsync(apiRequest).thenAcceptAsync(result ->
+                    complete(ctx, seq, encode(ctx.alloc(), result, apiRequest), true), ctx.executor());
+            return;
+        }
+
+        if (route.execution() == ApiRouter.Execution.INLINE) {
+            complete(ctx, seq, execute(ctx.alloc(), route, apiRequest), false);
+            return;
+        }
+
+        boolean accepted = handlerExecutor.submit(() -> {
+            FullHttpResponse response = execute(ctx.alloc(), route, apiRequest);
+            ctx.executor().execute(() -> complete(ctx, seq, response, true));
+        });
+        if (!accepted) {
+            complete(ctx, seq, createJsonResponse(ctx.alloc(), SERVER_BUSY, apiRequest), false);
+        }
+    }
+
+    /**
+     * Serve a snapshot route: from the cache while fresh, otherwise by joining an
+     * identical request already in flight, or by loading it as the leader of a new
+     * flight. Every waiting request shares the leader's encoded body.
+     */
+    private void serveSnapshot(ChannelHandlerContext ctx, long seq, ApiRouter.Route route, ApiRequest request) {
+        String key = snapshotKey(request);
+
+        ResponseCache.Entry cached = responseCache.get(route, key);
+        if (cached != null) {
+            complete(ctx, seq, createCachedResponse(cached, request, cacheControl(route)), false);
+            return;
+        }
+
+        CompletableFuture<ResponseCache.Entry> leader = new CompletableFuture<>();
+        CompletableFuture<ResponseCache.Entry> existing = responseCache.joinFlight(key, leader);
+        CompletableFuture<ResponseCache.Entry> flight = existing != null ? existing : leader;
+
+        flight.whenComplete((entry, error) -> {
+            FullHttpResponse response;
+            try {
+                response = entry != null
+                        ? createCachedResponse(entry, request, cacheControl(route))
+                        : createJsonResponse(ctx.alloc(), ApiResponse.error(
+                                HttpResponseStatus.INTERNAL_SERVER_ERROR, "Failed to load response"), null);
+            } catch (RuntimeException e) {
+                LOGGER.warning("Error encoding response for " + request.uri() + ": " + e.getMessage());
+                response = createJsonResponse(ctx.alloc(), ApiResponse.error(
+                        HttpResponseStatus.INTERNAL_SERVER_ERROR, "Failed to encode response"), null);
             }
-            // GET /api/players/{name}/appearance
-            else if ((matcher = PLAYER_APPEARANCE_PATTERN.matcher(uri)).matches()) {
-                String playerName = matcher.group(1);
-                response = playersHandler.getPlayerAppearance(playerName);
-                if (response == null) {
-                    sendError(ctx, HttpResponseStatus.NOT_FOUND, "Player not found");
-                    return;
-                }
+            FullHttpResponse result = response;
+            if (ctx.executor().inEventLoop()) {
+                complete(ctx, seq, result, false);
+            } else {
+                ctx.executor().execute(() -> complete(ctx, seq, result, true));
             }
-            // GET /api/worlds or /api/worlds/{name}
-            else if ((matcher = WORLDS_PATTERN.matcher(uri)).matches()) {
-                String worldName = matcher.group(1);
-                response = (worldName != null)
-                        ? worldsHandler.getWorld(worldName)
-                        : worldsHandler.getAllWorlds();
-                if (worldName != null && response == null) {
-                    sendError(ctx, HttpResponseStatus.NOT_FOUND, "World not found");
-                    return;
-                }
+        });
+
+        if (existing != null) {
+            return;
+        }
+
+        Runnable load = () -> responseCache.finishFlight(route, key, leader, () -> {
+            ApiResponse result = route.invoke(request);
+            ByteBuf content = JsonEncoder.encode(ctx.alloc(), result.body(), JsonEncoder.wantsPretty(request));
+            try {
+                return responseCache.newEntry(route, result.status(), content);
+            } finally {
+                content.release();
             }
-            // GET /api/worlds/{name}/stats
-            else if ((matcher = WORLD_STATS_PATTERN.matcher(uri)).matches()) {
-                String worldName = matcher.group(1);
-                response = worldsHandler.getWorldStats(worldName);
-                if (response == null) {
-                    sendError(ctx, HttpResponseStatus.NOT_FOUND, "World not found");
-                    return;
+        });
+
+        if (route.execution() == ApiRouter.Execution.INLINE) {
+            load.run();
+        } else if (!handlerExecutor.submit(load)) {
+            responseCache.finishFlight(route, key, leader, () -> {
+                ByteBuf content = JsonEncoder.encode(ctx.alloc(), SERVER_BUSY.body(), false);
+                try {
+                    return responseCache.newEntry(route, SERVER_BUSY.status(), content);
+                } finally {
+                    content.release();
                 }
+            });
+        }
+    }
+
+    private ApiResponse notFound(ApiRequest request) {
+        if (request.method() == HttpMethod.POST) {
+            return ApiResponse.error(HttpResponseStatus.NOT_FOUND, "POST endpoint not found: " + request.path());
+        }
+        if (request.method() != HttpMethod.GET) {
+            return ApiResponse.error(HttpResponseStatus.METHOD_NOT_ALLOWED);
+        }
+        return ApiResponse.error(HttpResponseStatus.NOT_FOUND, "Endpoint not found: " + request.path());
+    }
+
+    /**
+     * Run a route handler and serialize its result
+     */
+    private FullHttpResponse execute(ByteBufAllocator alloc, ApiRouter.Route route, ApiRequest request) {
+        return encode(alloc, route.invoke(request), request);
+    }
+
+    private FullHttpResponse encode(ByteBufAllocator alloc, ApiResponse result, ApiRequest request) {
+        try {
+            if (result.encoded() != null && !JsonEncoder.wantsPretty(request)) {
+                return createCachedResponse(result.encoded(), request, result.cacheControl());
             }
-            // GET /api/server/info
-            else if (SERVER_INFO_PATTERN.matcher(uri).matches()) {
-                response = serverHandler.getServerInfo();
-            }
-            // GET /api/server/performance
-            else if (SERVER_PERFORMANCE_PATTERN.matcher(uri).matches()) {
-                response = serverHandler.getPerformance();
-            }
-            // GET /api/server/memory
-            else if (SERVER_MEMORY_PATTERN.matcher(uri).matches()) {
-                response = serverHandler.getMemory();
-            }
-            // Not found
-            else {
-                sendError(ctx, HttpResponseStatus.NOT_FOUND, "Endpoint not found: " + uri);
-                return;
-            }
+            return createJsonResponse(alloc, result, request);
+        } catch (RuntimeException e) {
+            LOGGER.warning("Error encoding response for " + request.uri() + ": " + e.getMessage());
+            return createJsonResponse(alloc,
+                    ApiResponse.error(HttpResponseStatus.INTERNAL_SERVER_ERROR, "Failed to encode response"), null);
+        }
+    }
 
-            sendJson(ctx, response, status);
+    /**
+     * Key of a snapshot resource: path plus the options that change its encoding
+     */
+    private static String snapshotKey(ApiRequest request) {
+        return JsonEncoder.wantsPretty(request) ? request.path() + "?pretty" : request.path();
+    }
 
-        } catch (Exception e) {
-            LOGGER.warning("Error handling request " + uri + ": " + e.getMessage());
-            e.printStackTrace();
-            sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    /**
+     * Write the response for request {@code seq} once all earlier responses are written.
+     * Must be called on the channel's event loop.
+     */
+    private void complete(ChannelHandlerContext ctx, long seq, FullHttpResponse response, boolean flush) {
+        if (closed) {
+            // Offloaded or async request that finished after the client went away
+            ReferenceCountUtil.release(response);
+            return;
+        }
+        if (seq != nextWriteSeq) {
+            pendingResponses.put(seq, response);
+            return;
+        }
+
+        writeResponse(ctx, response);
+        nextWriteSeq++;
+
+        FullHttpResponse next;
+        while ((next = pendingResponses.remove(nextWriteSeq)) != null) {
+            writeResponse(ctx, next);
+            nextWriteSeq++;
+        }
+
+        if (flush) {
+            ctx.flush();
         }
     }
 
-    private void sendJson(ChannelHandlerContext ctx, Object data, HttpResponseStatus status) {
-        String json = GSON.toJson(data);
-        ByteBuf content = Unpooled.copiedBuffer(json, CharsetUtil.UTF_8);
+    /**
+     * Serialize a result, compressing it if the client accepts it and it is large enough.
+     *
+     * @param request the request, or null for a plain uncompressed response
+     */
+    private FullHttpResponse createJsonResponse(ByteBufAllocator alloc, ApiResponse result, ApiRequest request) {
+        boolean pretty = request != null && JsonEncoder.wantsPretty(request);
+        ByteBuf content = JsonEncoder.encode(alloc, result.body(), pretty);
+
+        String encoding = request != null ? compressor.negotiate(request.headers()) : null;
+        if (compressor.shouldCompress(encoding, content.readableBytes())) {
+            try {
+                ByteBuf compressed = compressor.compress(alloc, content, encoding);
+                content.release();
+                content = compressed;
+            } catch (RuntimeException e) {
+                content.release();
+                throw e;
+            }
+        } else {
+            encoding = null;
+        }
+
+        return createResponse(result.status(), content, encoding, null, null);
+    }
 
-        FullHttpResponse response = new DefaultFullHttpResponse(
-                HttpVersion.HTTP_1_1, status, content);
+    /**
+     * Response from a shared snapshot entry: 304 on a matching If-None-Match,
+     * otherwise the stored bytes (or their stored compressed form) without copying
+     */
+    private FullHttpResponse createCachedResponse(ResponseCache.Entry entry, ApiRequest request,
+                                                  String cacheControl) {
+        String encoding = compressor.negotiate(request.headers());
+        if (!compressor.shouldCompress(encoding, entry.body().length)) {
+            encoding = null;
+        }
+
+        // Strong ETag for successful snapshots; an unchanged body is answered with 304
+        String etag = null;
+        if (entry.status().equals(HttpResponseStatus.OK)) {
+            etag = EntityTags.of(entry.hash(), encoding);
+            if (EntityTags.matches(request.headers().get(HttpHeaderNames.IF_NONE_MATCH), etag)) {
+                return createNotModifiedResponse(etag, cacheControl);
+            }
+        }
+
+        ByteBuf content = encoding != null
+                ? Unpooled.wrappedBuffer(entry.compressed(encoding, compressor))
+                : Unpooled.wrappedBuffer(entry.body());
+        return createResponse(entry.status(), content, encoding, etag, cacheControl);
+    }
+
+    private FullHttpResponse createResponse(HttpResponseStatus status, ByteBuf content, String encoding,
+                                            String etag, String cacheControl) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
 
         response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=UTF-8");
         response.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        if (encoding != null) {
+            response.headers().set(HttpHeaderNames.CONTENT_ENCODING, encoding);
+        }
+        response.headers().set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        if (etag != null) {
+            setCacheHeaders(response, etag, cacheControl);
+        }
 
         // CORS headers
         response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
         response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_METHODS, "GET, POST, OPTIONS");
-        response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_HEADERS, "Content-Type, Authorization");
+        response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_HEADERS, "Content-Type, Authorization, If-None-Match");
 
-        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        return response;
     }
 
-    private void sendError(ChannelHandlerContext ctx, HttpResponseStatus status) {
-        sendError(ctx, status, status.reasonPhrase());
+    private FullHttpResponse createNotModifiedResponse(String etag, String cacheControl) {
+        FullHttpResponse response = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_MODIFIED, Unpooled.EMPTY_BUFFER);
+
+        // Explicit length keeps the connection alive (304 has no body)
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        response.headers().set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        setCacheHeaders(response, etag, cacheControl);
+
+        return response;
     }
 
-    private void sendError(ChannelHandlerContext ctx, HttpResponseStatus status, String message) {
-        ErrorResponse error = new ErrorResponse(status.code(), message);
-        sendJson(ctx, error, status);
+    private void setCacheHeaders(FullHttpResponse response, String etag, String cacheControl) {
+        response.headers().set(HttpHeaderNames.ETAG, etag);
+        response.headers().set(HttpHeaderNames.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaderNames.ETAG);
+        response.headers().set(HttpHeaderNames.CACHE_CONTROL,
+                cacheControl != null ? cacheControl : HttpHeaderValues.NO_CACHE);
+    }
+
+    private static String cacheControl(ApiRouter.Route route) {
+        return route.maxAgeSeconds() >= 0 ? "max-age=" + route.maxAgeSeconds() : null;
+    }
+
+    /**
+     * Write a response. With keep-alive the connection stays open and inline
+     * responses are flushed in channelReadComplete, so a batch of pipelined
+     * requests is answered with a single flush.
+     */
+    private void writeResponse(ChannelHandlerContext ctx, FullHttpResponse response) {
+        if (keepAliveEnabled) {
+            ctx.write(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        closed = true;
+        // Responses still waiting for an earlier offloaded request
+        for (FullHttpResponse response : pendingResponses.values()) {
+            ReferenceCountUtil.release(response);
+        }
+        pendingResponses.clear();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            // Idle keep-alive connection
+            ctx.close();
+            return;
+        }
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete
+                && ctx.pipeline().get(IDLE_HANDLER_NAME) != null) {
+            // WebSocket clients stay connected while idle
+            ctx.pipeline().remove(IDLE_HANDLER_NAME);
+        }
+        super.userEventTriggered(ctx, evt);
     }
 
     @Override
@@ -246,46 +392,16 @@ public class HttpRequestHandler extends SimpleChannelInboundHandler<FullHttpRequ
         ctx.close();
     }
 
-    private void sendCorsResponse(ChannelHandlerContext ctx) {
+    private FullHttpResponse createCorsResponse() {
         FullHttpResponse response = new DefaultFullHttpResponse(
                 HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.EMPTY_BUFFER);
 
         response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
         response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_METHODS, "GET, POST, OPTIONS");
-        response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_HEADERS, "Content-Type, Authorization");
+        response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_HEADERS, "Content-Type, Authorization, If-None-Match");
         response.headers().set(HttpHeaderNames.ACCESS_CONTROL_MAX_AGE, 86400);
         response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
 
-        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
-    }
-
-    /**
-     * Error response structure
-     */
-    private static class ErrorResponse {
-        public final int status;
-        public final String error;
-
-        public ErrorResponse(int status, String error) {
-            this.status = status;
-            this.error = error;
-        }
-    }
-
-    /**
-     * Request body for teleport
-     */
-    private static class TeleportRequest {
-        public Double x;
-        public Double y;
-        public Double z;
-        public String target;
-    }
-
-    /**
-     * Request body for gamemode
-     */
-    private static class GamemodeRequest {
-        public String gamemode;
+        return response;
     }
 }
@@ -0,0 +1,64 @@
+package com.kyuubisoft.api.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes response bodies straight into a (pooled) ByteBuf.
+ *
+ * Gson writes through a JsonWriter into the buffer, so no intermediate String
+ * or heap copy of the JSON is created.
+ */
+public final class JsonEncoder {
+
+    private static final Gson GSON = new Gson();
+
+    private JsonEncoder() {
+    }
+
+    /**
+     * Encode a value as UTF-8 JSON. The caller owns the returned buffer.
+     *
+     * @param pretty indent the output (compact otherwise)
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, Object value, boolean pretty) {
+        ByteBuf buffer = alloc.buffer();
+        boolean success = false;
+        try (Writer out = new OutputStreamWriter(new ByteBufOutputStream(buffer), StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            if (pretty) {
+                writer.setIndent("  ");
+            }
+            if (value == null) {
+                GSON.toJson(JsonNull.INSTANCE, writer);
+            } else {
+                GSON.toJson(value, value.getClass(), writer);
+            }
+            success = true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode JSON", e);
+        } finally {
+            if (!success) {
+                buffer.release();
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Whether a request asked for indented output via {@code ?pretty=1}
+     */
+    public static boolean wantsPretty(ApiRequest request) {
+        String pretty = request.queryParam("pretty");
+        return pretty != null && (pretty.equals("1") || pretty.equalsIgnoreCase("true"));
+    }
+}
@@ -0,0 +1,149 @@
+package com.kyuubisoft.api.web;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+import java.util.logging.Logger;
+
+/**
+ * Selects the Netty transport for the WebServer.
+ *
+ * Native transports are looked up reflectively because the Netty modules bundled
+ * with HytaleServer.jar vary by server build. NIO is always available as fallback.
+ */
+public final class NettyTransport {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+
+    private final String name;
+    private final Class<?> eventLoopGroupClass;
+    private final Class<? extends ServerChannel> serverChannelClass;
+    private final ChannelOption<Boolean> reusePortOption;
+
+    private NettyTransport(String name, Class<?> eventLoopGroupClass,
+                           Class<? extends ServerChannel> serverChannelClass,
+                           ChannelOption<Boolean> reusePortOption) {
+        this.name = name;
+        this.eventLoopGroupClass = eventLoopGroupClass;
+        this.serverChannelClass = serverChannelClass;
+        this.reusePortOption = reusePortOption;
+    }
+
+    /**
+     * Resolve the transport for a config value: "auto", "epoll", "io_uring" or "nio".
+     * "auto" prefers epoll; io_uring is only used when explicitly requested.
+     */
+    public static NettyTransport select(String preference) {
+        String pref = preference == null ? "auto" : preference.trim().toLowerCase();
+
+        NettyTransport transport = null;
+        switch (pref) {
+            case "nio":
+                return nio();
+            case "io_uring":
+            case "iouring":
+                transport = tryIoUring();
+                break;
+            case "epoll":
+            case "auto":
+                transport = tryEpoll();
+                break;
+            default:
+                LOGGER.warning("Unknown transport '" + preference + "', using auto");
+                pref = "auto";
+                transport = tryEpoll();
+        }
+
+        if (transport == null) {
+            if (!pref.equals("auto")) {
+                LOGGER.warning("Transport '" + pref + "' not available, falling back to NIO");
+            }
+            return nio();
+        }
+        return transport;
+    }
+
+    private static NettyTransport nio() {
+        return new NettyTransport("nio", NioEventLoopGroup.class, NioServerSocketChannel.class, null);
+    }
+
+    private static NettyTransport tryEpoll() {
+        return tryNative("epoll",
+                "io.netty.channel.epoll.Epoll",
+                "io.netty.channel.epoll.EpollEventLoopGroup",
+                "io.netty.channel.epoll.EpollServerSocketChannel",
+                "io.netty.channel.epoll.EpollChannelOption");
+    }
+
+    private static NettyTransport tryIoUring() {
+        return tryNative("io_uring",
+                "io.netty.incubator.channel.uring.IOUring",
+                "io.netty.incubator.channel.uring.IOUringEventLoopGroup",
+                "io.netty.incubator.channel.uring.IOUringServerSocketChannel",
+                "io.netty.incubator.channel.uring.IOUringChannelOption");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NettyTransport tryNative(String name, String availabilityClass, String groupClass,
+                                            String channelClass, String optionClass) {
+        try {
+            ClassLoader loader = NettyTransport.class.getClassLoader();
+            Class<?> availability = Class.forName(availabilityClass, true, loader);
+            if (!(Boolean) availability.getMethod("isAvailable").invoke(null)) {
+                Throwable cause = (Throwable) availability.getMethod("unavailabilityCause").invoke(null);
+                LOGGER.fine("Native transport " + name + " unavailable: "
+                        + (cause != null ? cause.getMessage() : "unknown"));
+                return null;
+            }
+
+            Class<?> group = Class.forName(groupClass, true, loader);
+            Class<? extends ServerChannel> channel =
+                    (Class<? extends ServerChannel>) Class.forName(channelClass, true, loader);
+
+            ChannelOption<Boolean> reusePort = null;
+            try {
+                reusePort = (ChannelOption<Boolean>) Class.forName(optionClass, true, loader)
+                        .getField("SO_REUSEPORT").get(null);
+            } catch (ReflectiveOperationException ignored) {
+                // Transport without SO_REUSEPORT support
+            }
+
+            return new NettyTransport(name, group, channel, reusePort);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Transport not on the classpath
+            return null;
+        }
+    }
+
+    /**
+     * Create an event loop group for this transport (0 = Netty default thread count)
+     */
+    public EventLoopGroup newEventLoopGroup(int threads) {
+        if (eventLoopGroupClass == NioEventLoopGroup.class) {
+            return new NioEventLoopGroup(threads);
+        }
+        try {
+            return (EventLoopGroup) eventLoopGroupClass.getConstructor(int.class).newInstance(threads);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create " + name + " event loop group", e);
+        }
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        return serverChannelClass;
+    }
+
+    /**
+     * SO_REUSEPORT option of this transport, or null if not supported
+     */
+    public ChannelOption<Boolean> reusePortOption() {
+        return reusePortOption;
+    }
+
+    public String name() {
+        return name;
+    }
+}
@@ -0,0 +1,251 @@
+package com.kyuubisoft.api.web;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of encoded snapshot responses, keyed by route path and parameters.
+ *
+ * Entries hold the serialized JSON bytes, their content hash (for ETags) and
+ * lazily compressed variants, so concurrent pollers share one serialization.
+ * Entries expire after a per-route TTL and are dropped early when game events
+ * change the underlying data.
+ *
+ * Identical requests that miss the cache at the same time are coalesced: the
+ * first one loads the entry, the others wait on its flight and share the result,
+ * even when caching is disabled for the route.
+ */
+public class ResponseCache {
+
+    private final long defaultTtlMillis;
+    private final Map<String, Long> routeTtlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> flights = new ConcurrentHashMap<>();
+    // Bumped per route name by invalidate(); a load that overlapped one is not stored
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public ResponseCache(long defaultTtlMillis, Map<String, Integer> routeTtlMillis, int maxEntries) {
+        this.defaultTtlMillis = Math.max(0, defaultTtlMillis);
+        this.routeTtlMillis = new ConcurrentHashMap<>();
+        if (routeTtlMillis != null) {
+            routeTtlMillis.forEach((route, ttl) -> {
+                if (route != null && ttl != null) {
+                    this.routeTtlMillis.put(route, Math.max(0L, ttl));
+                }
+            });
+        }
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    /**
+     * Whether responses of this route are cached at all
+     */
+    public boolean isEnabled(ApiRouter.Route route) {
+        return route.isSnapshot() && maxEntries > 0 && ttlMillis(route) > 0;
+    }
+
+    private long ttlMillis(ApiRouter.Route route) {
+        return routeTtlMillis.getOrDefault(route.name(), defaultTtlMillis);
+    }
+
+    /**
+     * Fresh entry for a key, or null (counted as miss)
+     */
+    public Entry get(ApiRouter.Route route, String key) {
+        if (!isEnabled(route)) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() < entry.expiresAtNanos) {
+            hits.increment();
+            return entry;
+        }
+        if (entry != null) {
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Join the load of a key already in flight, or register {@code leader} as its load.
+     *
+     * @return the running flight to wait on, or null if the caller leads and must
+     *         call {@link #finishFlight} with {@code leader}
+     */
+    public CompletableFuture<Entry> joinFlight(String key, CompletableFuture<Entry> leader) {
+        CompletableFuture<Entry> existing = flights.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalesced.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * Load the entry of a flight, cache it if successful and hand it to all waiters.
+     * An entry whose route was invalidated while it loaded may predate the change,
+     * so it is handed to the waiters but not cached.
+     */
+    public void finishFlight(ApiRouter.Route route, String key, CompletableFuture<Entry> leader,
+                             Supplier<Entry> loader) {
+        AtomicLong generation = generation(route.name());
+        long loadedAt = generation.get();
+        Entry entry = null;
+        Throwable error = null;
+        try {
+            entry = loader.get();
+            if (isEnabled(route) && entry.status.equals(HttpResponseStatus.OK) && generation.get() == loadedAt) {
+                store(key, entry);
+            }
+        } catch (Throwable t) {
+            error = t;
+        } finally {
+            flights.remove(key, leader);
+        }
+
+        if (error != null) {
+            leader.completeExceptionally(error);
+        } else {
+            leader.complete(entry);
+        }
+    }
+
+    /**
+     * New entry for an encoded body. The caller keeps ownership of {@code body}.
+     */
+    public Entry newEntry(ApiRouter.Route route, HttpResponseStatus status, ByteBuf body) {
+        long expiresAt = System.nanoTime() + ttlMillis(route) * 1_000_000L;
+        return new Entry(route.name(), status, ByteBufUtil.getBytes(body), expiresAt);
+    }
+
+    private void store(String key, Entry entry) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            long now = System.nanoTime();
+            entries.values().removeIf(e -> now >= e.expiresAtNanos);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    /**
+     * Drop all entries of the given routes
+     */
+    public void invalidate(String... routeNames) {
+        Set<String> names = new HashSet<>();
+        Collections.addAll(names, routeNames);
+        // Before dropping entries, so a load storing concurrently sees the change
+        for (String name : names) {
+            generation(name).incrementAndGet();
+        }
+        if (entries.values().removeIf(entry -> names.contains(entry.routeName))) {
+            invalidations.increment();
+        }
+    }
+
+    public void clear() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+        invalidations.increment();
+    }
+
+    private AtomicLong generation(String routeName) {
+        return generations.computeIfAbsent(routeName, name -> new AtomicLong());
+    }
+
+    public Stats stats() {
+        Stats stats = new Stats();
+        stats.entries = entries.size();
+        stats.maxEntries = maxEntries;
+        stats.hits = hits.sum();
+        stats.misses = misses.sum();
+        long total = stats.hits + stats.misses;
+        stats.hitRate = total > 0 ? Math.round(stats.hits * 1000.0 / total) / 10.0 : 0.0;
+        stats.invalidations = invalidations.sum();
+        stats.coalesced = coalesced.sum();
+        stats.inFlight = flights.size();
+        return stats;
+    }
+
+    /**
+     * Encoded response body shared by all requests of a flight and, while fresh,
+     * by later requests served from the cache
+     */
+    public static final class Entry {
+        private final String routeName;
+        private final HttpResponseStatus status;
+        private final byte[] body;
+        private final byte[] hash;
+        private final long expiresAtNanos;
+        private final Map<String, byte[]> compressed = new ConcurrentHashMap<>(2);
+
+        Entry(String routeName, HttpResponseStatus status, byte[] body, long expiresAtNanos) {
+            this.routeName = routeName;
+            this.status = status;
+            this.body = body;
+            this.hash = sha256(body);
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private static byte[] sha256(byte[] body) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(body);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        public HttpResponseStatus status() {
+            return status;
+        }
+
+        /**
+         * Uncompressed JSON bytes; must not be modified
+         */
+        public byte[] body() {
+            return body;
+        }
+
+        public byte[] hash() {
+            return hash;
+        }
+
+        /**
+         * Compressed variant, created once per encoding
+         */
+        public byte[] compressed(String encoding, ResponseCompressor compressor) {
+            return compressed.computeIfAbsent(encoding, e -> compressor.compress(body, e));
+        }
+    }
+
+    public static class Stats {
+        public int entries;
+        public int maxEntries;
+        public long hits;
+        public long misses;
+        public double hitRate;
+        public long invalidations;
+        public long coalesced;
+        public int inFlight;
+    }
+}
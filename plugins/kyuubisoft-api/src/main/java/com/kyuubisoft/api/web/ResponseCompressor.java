@@ -0,0 +1,142 @@
+package com.kyuubisoft.api.web;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip/deflate compression of response bodies, negotiated via Accept-Encoding.
+ *
+ * Bodies below the configured size are sent uncompressed. Compressed forms of
+ * cached bodies are kept by their ResponseCache entries, not here.
+ */
+public class ResponseCompressor {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private final boolean enabled;
+    private final int minBytes;
+    private final int level;
+
+    public ResponseCompressor(boolean enabled, int minBytes, int level) {
+        this.enabled = enabled;
+        this.minBytes = Math.max(0, minBytes);
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+    }
+
+    /**
+     * Pick the encoding for a request: gzip preferred over deflate, null for identity
+     */
+    public String negotiate(HttpHeaders requestHeaders) {
+        if (!enabled) {
+            return null;
+        }
+        String acceptEncoding = requestHeaders.get(HttpHeaderNames.ACCEPT_ENCODING);
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String coding = part.trim();
+            float q = 1.0f;
+            int semicolon = coding.indexOf(';');
+            if (semicolon >= 0) {
+                q = parseQuality(coding.substring(semicolon + 1));
+                coding = coding.substring(0, semicolon).trim();
+            }
+            if (q <= 0.0f) {
+                continue;
+            }
+            if (coding.equalsIgnoreCase(GZIP) || coding.equals("*")) {
+                gzip = true;
+            } else if (coding.equalsIgnoreCase(DEFLATE)) {
+                deflate = true;
+            }
+        }
+        return gzip ? GZIP : deflate ? DEFLATE : null;
+    }
+
+    private static float parseQuality(String params) {
+        String param = params.trim();
+        if (param.startsWith("q=")) {
+            try {
+                return Float.parseFloat(param.substring(2));
+            } catch (NumberFormatException ignored) {
+                // Malformed quality, treat as acceptable
+            }
+        }
+        return 1.0f;
+    }
+
+    /**
+     * Whether a body of this size should be compressed
+     */
+    public boolean shouldCompress(String encoding, int bodyBytes) {
+        return encoding != null && bodyBytes >= minBytes;
+    }
+
+    /**
+     * Compress a body. The caller keeps ownership of {@code body} and owns the result.
+     */
+    public ByteBuf compress(ByteBufAllocator alloc, ByteBuf body, String encoding) {
+        ByteBuf out = alloc.buffer(Math.max(64, body.readableBytes() / 4));
+        try {
+            deflate(body, encoding, new ByteBufOutputStream(out));
+            return out;
+        } catch (IOException | RuntimeException e) {
+            out.release();
+            throw new IllegalStateException("Failed to compress response", e);
+        }
+    }
+
+    /**
+     * Compress an encoded body into a new array
+     */
+    public byte[] compress(byte[] body, String encoding) {
+        ByteBufOutputStream out = new ByteBufOutputStream(Unpooled.buffer(Math.max(64, body.length / 4)));
+        try {
+            deflate(Unpooled.wrappedBuffer(body), encoding, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to compress response", e);
+        }
+        return ByteBufUtil.getBytes(out.buffer());
+    }
+
+    private void deflate(ByteBuf body, String encoding, OutputStream target) throws IOException {
+        OutputStream stream = GZIP.equals(encoding)
+                ? new LeveledGzipOutputStream(target, level)
+                : new DeflaterOutputStream(target, new Deflater(level), 8192, false) {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        def.end();
+                    }
+                };
+        try (stream) {
+            body.getBytes(body.readerIndex(), stream, body.readableBytes());
+        }
+    }
+
+    /**
+     * GZIPOutputStream with a configurable compression level
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.kyuubisoft.api.web;
 
+import com.kyuubisoft.api.config.ApiConfig;
+import com.kyuubisoft.api.handlers.ChatHandler;
+import com.kyuubisoft.api.handlers.PlayersHandler;
+import com.kyuubisoft.api.handlers.PlaytimeHandler;
+import com.kyuubisoft.api.handlers.ServerHandler;
+import com.kyuubisoft.api.handlers.WorldsHandler;
 import com.kyuubisoft.api.websocket.EventBroadcaster;
+import com.kyuubisoft.api.websocket.PositionStream;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import java.util.logging.Logger;
 
 /**
@@ -19,32 +27,82 @@ public class WebServer {
 
     private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
 
+    private final ApiConfig config;
     private final int port;
     private final EventBroadcaster eventBroadcaster;
+    private final PlayersHandler playersHandler;
+    private final WorldsHandler worldsHandler;
+    private final ServerHandler serverHandler;
+    private final PlaytimeHandler playtimeHandler;
+    private final ChatHandler chatHandler;
+    private final PositionStream positionStream;
 
+    private final ResponseCache responseCache;
+    private final AppearanceCache appearanceCache;
+    private HandlerExecutor handlerExecutor;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final List<Channel> serverChannels = new ArrayList<>();
 
-    public WebServer(int port, EventBroadcaster eventBroadcaster) {
-        this.port = port;
+    public WebServer(ApiConfig config, EventBroadcaster eventBroadcaster, PlayersHandler playersHandler,
+                     WorldsHandler worldsHandler, ServerHandler serverHandler, PlaytimeHandler playtimeHandler,
+                     ChatHandler chatHandler, PositionStream positionStream) {
+        this.config = config;
+        this.port = config.getHttpPort();
         this.eventBroadcaster = eventBroadcaster;
+        this.playersHandler = playersHandler;
+        this.worldsHandler = worldsHandler;
+        this.serverHandler = serverHandler;
+        this.playtimeHandler = playtimeHandler;
+        this.chatHandler = chatHandler;
+        this.positionStream = positionStream;
+        this.responseCache = new ResponseCache(config.getResponseCacheTtlMillis(),
+                config.getRouteCacheTtlMillis(), config.getResponseCacheMaxEntries());
+        this.appearanceCache = new AppearanceCache(playersHandler);
     }
 
     public void start() throws InterruptedException {
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
+        handlerExecutor = new HandlerExecutor(config.getHandlerThreadType(),
+                config.getHandlerThreads(), config.getHandlerQueueCapacity());
+
+        // Routes are built once and shared by all connections
+        ApiRouter router = ApiRoutes.create(playersHandler, worldsHandler, serverHandler,
+                playtimeHandler, chatHandler, handlerExecutor, responseCache, config.getBatchMaxRequests(),
+                config.getActionMaxTargets(), appearanceCache, config.getAppearanceMaxAgeSeconds());
+        router.configureExecution(config.getDefaultRouteExecution(), config.getRouteExecution());
+        ResponseCompressor compressor = new ResponseCompressor(config.isCompressionEnabled(),
+                config.getCompressionMinBytes(), config.getCompressionLevel());
+
+        NettyTransport transport = NettyTransport.select(config.getTransport());
+        boolean reusePort = config.isReusePort() && transport.reusePortOption() != null;
+        if (config.isReusePort() && !reusePort) {
+            LOGGER.warning("reusePort requires a native transport, binding a single listener");
+        }
+        int listeners = reusePort ? Math.max(1, config.getAcceptThreads()) : 1;
+
+        bossGroup = transport.newEventLoopGroup(listeners);
+        workerGroup = transport.newEventLoopGroup(Math.max(0, config.getWorkerThreads()));
 
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
-                .childHandler(new ChannelInitializer<SocketChannel>() {
+                .channel(transport.serverChannelClass())
+                .childHandler(new ChannelInitializer<Channel>() {
                     @Override
-                    protected void initChannel(SocketChannel ch) {
+                    protected void initChannel(Channel ch) {
                         ChannelPipeline pipeline = ch.pipeline();
 
+                        // Close idle HTTP connections (removed again once a WebSocket handshake completes)
+                        if (config.getIdleTimeoutSeconds() > 0) {
+                            pipeline.addLast(HttpRequestHandler.IDLE_HANDLER_NAME,
+                                    new IdleStateHandler(0, 0, config.getIdleTimeoutSeconds()));
+                        }
+
                         // HTTP codec
                         pipeline.addLast(new HttpServerCodec());
+                        if (config.isKeepAliveEnabled()) {
+                            // Honors Connection headers and closes only after the last pipelined response
+                            pipeline.addLast(new HttpServerKeepAliveHandler());
+                        }
                         pipeline.addLast(new HttpObjectAggregator(65536));
                         pipeline.addLast(new ChunkedWriteHandler());
 
@@ -52,27 +110,54 @@ public class WebServer {
                         pipeline.addLast(new WebSocketServerProtocolHandler("/ws", null, true));
 
                         // Custom handlers
-                        pipeline.addLast(new HttpRequestHandler());
-                        pipeline.addLast(new WebSocketFrameHandler(eventBroadcaster));
+                        pipeline.addLast(new HttpRequestHandler(router, handlerExecutor, compressor,
+                                responseCache, config.isKeepAliveEnabled()));
+                        pipeline.addLast(new WebSocketFrameHandler(eventBroadcaster, positionStream));
                     }
                 })
                 .option(ChannelOption.SO_BACKLOG, 128)
                 .childOption(ChannelOption.SO_KEEPALIVE, true);
 
-        serverChannel = bootstrap.bind(port).sync().channel();
-        LOGGER.info("WebServer bound to port " + port);
+        if (reusePort) {
+            bootstrap.option(transport.reusePortOption(), true);
+        }
+
+        // With SO_REUSEPORT the kernel spreads accepts across one listener per boss thread
+        for (int i = 0; i < listeners; i++) {
+            serverChannels.add(bootstrap.bind(port).sync().channel());
+        }
+        LOGGER.info("WebServer bound to port " + port + " using " + transport.name() + " transport"
+                + (reusePort ? " (SO_REUSEPORT, " + listeners + " listeners)" : ""));
+    }
+
+    /**
+     * Drop cached responses that depend on the online player list
+     */
+    public void invalidatePlayerViews() {
+        responseCache.invalidate(ApiRoutes.PLAYER_LIST_ROUTES);
+    }
+
+    /**
+     * Drop a player's cached appearance on connect, disconnect or an appearance change
+     */
+    public void invalidateAppearance(UUID player) {
+        appearanceCache.invalidate(player);
     }
 
     public void stop() {
-        if (serverChannel != null) {
+        for (Channel serverChannel : serverChannels) {
             serverChannel.close();
         }
+        serverChannels.clear();
         if (bossGroup != null) {
             bossGroup.shutdownGracefully();
         }
         if (workerGroup != null) {
             workerGroup.shutdownGracefully();
         }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdown();
+        }
         LOGGER.info("WebServer stopped");
     }
 }
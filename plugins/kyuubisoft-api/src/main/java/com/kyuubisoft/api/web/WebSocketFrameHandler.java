@@ -1,6 +1,9 @@
 package com.kyuubisoft.api.web;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.kyuubisoft.api.websocket.EventBroadcaster;
+import com.kyuubisoft.api.websocket.PositionStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.websocketx.*;
@@ -13,11 +16,17 @@ import java.util.logging.Logger;
 public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
 
     private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+    private static final Gson GSON = new Gson();
 
     private final EventBroadcaster eventBroadcaster;
+    private final PositionStream positionStream;
 
-    public WebSocketFrameHandler(EventBroadcaster eventBroadcaster) {
+    /**
+     * @param positionStream the live position stream, or null if disabled
+     */
+    public WebSocketFrameHandler(EventBroadcaster eventBroadcaster, PositionStream positionStream) {
         this.eventBroadcaster = eventBroadcaster;
+        this.positionStream = positionStream;
     }
 
     @Override
@@ -30,17 +39,18 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
     public void handlerRemoved(ChannelHandlerContext ctx) {
         // Client disconnected
         eventBroadcaster.removeChannel(ctx.channel());
+        if (positionStream != null) {
+            positionStream.unsubscribe(ctx.channel());
+        }
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
         if (frame instanceof TextWebSocketFrame) {
-            // Handle text messages from client (e.g., for future commands)
+            // Handle text messages from client, e.g. {"action":"subscribe","stream":"positions"}
             String text = ((TextWebSocketFrame) frame).text();
             LOGGER.fine("Received WebSocket message: " + text);
-
-            // Echo back for now (can be extended for commands)
-            // ctx.channel().writeAndFlush(new TextWebSocketFrame("Received: " + text));
+            handleCommand(ctx, text);
 
         } else if (frame instanceof PingWebSocketFrame) {
             // Respond to ping with pong
@@ -56,9 +66,31 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
         }
     }
 
+    private void handleCommand(ChannelHandlerContext ctx, String text) {
+        ClientCommand command;
+        try {
+            command = GSON.fromJson(text, ClientCommand.class);
+        } catch (JsonParseException e) {
+            return;
+        }
+        if (command == null || !"positions".equals(command.stream) || positionStream == null) {
+            return;
+        }
+        if ("subscribe".equals(command.action)) {
+            positionStream.subscribe(ctx.channel());
+        } else if ("unsubscribe".equals(command.action)) {
+            positionStream.unsubscribe(ctx.channel());
+        }
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         LOGGER.warning("WebSocket error: " + cause.getMessage());
         ctx.close();
     }
+
+    private static class ClientCommand {
+        String action;
+        String stream;
+    }
 }
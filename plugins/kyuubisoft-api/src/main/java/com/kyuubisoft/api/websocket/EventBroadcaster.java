@@ -1,6 +1,7 @@
 package com.kyuubisoft.api.websocket;
 
 import com.google.gson.Gson;
+import com.kyuubisoft.api.tracking.InventoryTracker;
 import io.netty.channel.Channel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
@@ -8,6 +9,7 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -100,6 +102,22 @@ public class EventBroadcaster {
         broadcast(event);
     }
 
+    /**
+     * Broadcast the changed slots of a player's inventory
+     */
+    public void broadcastInventoryDelta(InventoryTracker.Delta delta) {
+        InventoryDeltaEvent event = new InventoryDeltaEvent();
+        event.type = "inventory_delta";
+        event.player = delta.name;
+        event.uuid = delta.uuid;
+        event.fromVersion = delta.fromVersion;
+        event.version = delta.version;
+        event.changes = delta.changes;
+        event.timestamp = Instant.now().toString();
+
+        broadcast(event);
+    }
+
     /**
      * Broadcast TPS update (can be called periodically)
      */
@@ -161,6 +179,16 @@ public class EventBroadcaster {
         public String timestamp;
     }
 
+    public static class InventoryDeltaEvent {
+        public String type;
+        public String player;
+        public String uuid;
+        public long fromVersion;
+        public long version;
+        public List<InventoryTracker.SlotChange> changes;
+        public String timestamp;
+    }
+
     public static class TpsEvent {
         public String type;
         public double tps;
@@ -0,0 +1,323 @@
+package com.kyuubisoft.api.websocket;
+
+import com.google.gson.Gson;
+import com.kyuubisoft.api.state.SnapshotEngine;
+import com.kyuubisoft.api.state.UniverseSnapshot;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Live player positions for WebSocket clients that subscribe to them.
+ *
+ * Positions are quantized to {@code 1/precision} blocks. Every frame carries
+ * only players that moved at least {@code threshold} blocks since they were
+ * last sent, as deltas of the quantized coordinates, so a client that applies
+ * every frame reconstructs the quantized positions exactly. Players get a small
+ * numeric id that stays stable while they are online; their name and world are
+ * only sent when they appear or change world.
+ *
+ * A keyframe with the absolute state of all players is broadcast every
+ * {@code keyframeMillis}, and sent to each new subscriber before its first
+ * delta frame. Frames are numbered; a client that sees a gap should wait for
+ * the next keyframe.
+ */
+public class PositionStream {
+
+    private static final Logger LOGGER = Logger.getLogger("KyuubiSoftAPI");
+    private static final Gson GSON = new Gson();
+
+    private final SnapshotEngine snapshotEngine;
+    private final long frameMillis;
+    private final int precision;
+    private final int thresholdSteps;
+    private final long keyframeMillis;
+
+    private final ChannelGroup subscribers = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    private final Queue<Channel> pending = new ConcurrentLinkedQueue<>();
+
+    // Last sent state, only touched on the stream thread
+    private final Map<UUID, Tracked> tracked = new LinkedHashMap<>();
+    private int nextId;
+    private long seq;
+    private long lastVersion = -1;
+    private long lastKeyframeMillis;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param frameMillis    time between frames
+     * @param precision      quantization steps per block
+     * @param threshold      minimum movement in blocks before a player is sent again
+     * @param keyframeMillis time between keyframes
+     */
+    public PositionStream(SnapshotEngine snapshotEngine, long frameMillis, int precision, double threshold,
+                          long keyframeMillis) {
+        this.snapshotEngine = snapshotEngine;
+        this.frameMillis = Math.max(50, frameMillis);
+        this.precision = Math.max(1, precision);
+        this.thresholdSteps = Math.max(1, (int) Math.round(threshold * this.precision));
+        this.keyframeMillis = Math.max(this.frameMillis, keyframeMillis);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KyuubiSoftAPI-positions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, frameMillis, frameMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Start streaming to a channel from the next frame on
+     */
+    public void subscribe(Channel channel) {
+        if (!subscribers.contains(channel) && !pending.contains(channel)) {
+            pending.add(channel);
+        }
+    }
+
+    public void unsubscribe(Channel channel) {
+        pending.remove(channel);
+        subscribers.remove(channel);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size() + pending.size();
+    }
+
+    private void tick() {
+        try {
+            if (subscribers.isEmpty() && pending.isEmpty()) {
+                return;
+            }
+            // Reading the snapshot also keeps sampling active while anyone is subscribed
+            UniverseSnapshot snapshot = snapshotEngine.current();
+            long now = System.currentTimeMillis();
+
+            if (now - lastKeyframeMillis >= keyframeMillis) {
+                update(snapshot, true);
+                Channel channel;
+                while ((channel = pending.poll()) != null) {
+                    subscribers.add(channel);
+                }
+                lastKeyframeMillis = now;
+                lastVersion = snapshot.version();
+                send(subscribers, keyframe(snapshot.capturedAtMillis()));
+                return;
+            }
+
+            // New subscribers first get the state the next delta is based on
+            Channel channel;
+            while ((channel = pending.poll()) != null) {
+                if (channel.isActive()) {
+                    channel.writeAndFlush(new TextWebSocketFrame(keyframe(snapshot.capturedAtMillis())));
+                    subscribers.add(channel);
+                }
+            }
+
+            if (snapshot.version() == lastVersion) {
+                return;
+            }
+            lastVersion = snapshot.version();
+            PositionFrame frame = update(snapshot, false);
+            if (frame != null) {
+                send(subscribers, GSON.toJson(frame));
+            }
+        } catch (Exception e) {
+            LOGGER.warning("Position stream frame failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bring the tracked state up to date with a snapshot.
+     *
+     * @param all move every player to its exact position (for a keyframe)
+     * @return the delta frame, or null if nothing changed or {@code all} is set
+     */
+    private PositionFrame update(UniverseSnapshot snapshot, boolean all) {
+        List<PlayerEntry> added = new ArrayList<>();
+        int[] deltas = new int[snapshot.players().size() * 4];
+        int deltaLength = 0;
+        Set<UUID> present = new HashSet<>(snapshot.players().size() * 2);
+
+        for (UniverseSnapshot.PlayerState player : snapshot.players()) {
+            if (!player.hasPosition || player.world == null) {
+                continue;
+            }
+            present.add(player.uuid);
+            int x = quantize(player.x);
+            int y = quantize(player.y);
+            int z = quantize(player.z);
+
+            Tracked state = tracked.get(player.uuid);
+            if (state == null || !state.world.equals(player.world)) {
+                if (state == null) {
+                    state = new Tracked(nextId++, player.uuidString, player.name);
+                    tracked.put(player.uuid, state);
+                }
+                state.world = player.world;
+                state.move(x, y, z);
+                added.add(state.entry());
+                continue;
+            }
+
+            int dx = x - state.x;
+            int dy = y - state.y;
+            int dz = z - state.z;
+            if (all) {
+                state.move(x, y, z);
+            } else if (Math.abs(dx) >= thresholdSteps || Math.abs(dy) >= thresholdSteps
+                    || Math.abs(dz) >= thresholdSteps) {
+                state.move(x, y, z);
+                deltas[deltaLength++] = state.id;
+                deltas[deltaLength++] = dx;
+                deltas[deltaLength++] = dy;
+                deltas[deltaLength++] = dz;
+            }
+        }
+
+        List<Integer> removed = new ArrayList<>();
+        for (Iterator<Map.Entry<UUID, Tracked>> it = tracked.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, Tracked> entry = it.next();
+            if (!present.contains(entry.getKey())) {
+                removed.add(entry.getValue().id);
+                it.remove();
+            }
+        }
+
+        if (all || (added.isEmpty() && deltaLength == 0 && removed.isEmpty())) {
+            return null;
+        }
+
+        PositionFrame frame = new PositionFrame();
+        frame.type = "positions";
+        frame.seq = ++seq;
+        frame.t = snapshot.capturedAtMillis();
+        frame.add = added.isEmpty() ? null : added;
+        if (deltaLength > 0) {
+            frame.d = new int[deltaLength];
+            System.arraycopy(deltas, 0, frame.d, 0, deltaLength);
+        }
+        if (!removed.isEmpty()) {
+            frame.rm = removed.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return frame;
+    }
+
+    /**
+     * Absolute state of all tracked players, numbered so that the next delta follows it
+     */
+    private String keyframe(long capturedAtMillis) {
+        PositionFrame frame = new PositionFrame();
+        frame.type = "positions";
+        frame.key = true;
+        frame.seq = seq;
+        frame.t = capturedAtMillis;
+        frame.scale = precision;
+        frame.add = new ArrayList<>(tracked.size());
+        for (Tracked state : tracked.values()) {
+            frame.add.add(state.entry());
+        }
+        return GSON.toJson(frame);
+    }
+
+    private void send(ChannelGroup group, String json) {
+        if (!group.isEmpty()) {
+            group.writeAndFlush(new TextWebSocketFrame(json));
+        }
+    }
+
+    private int quantize(double coordinate) {
+        return (int) Math.round(coordinate * precision);
+    }
+
+    /**
+     * Last sent state of a player
+     */
+    private static final class Tracked {
+        final int id;
+        final String uuid;
+        final String name;
+        String world;
+        int x;
+        int y;
+        int z;
+
+        Tracked(int id, String uuid, String name) {
+            this.id = id;
+            this.uuid = uuid;
+            this.name = name;
+        }
+
+        void move(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        PlayerEntry entry() {
+            PlayerEntry entry = new PlayerEntry();
+            entry.id = id;
+            entry.uuid = uuid;
+            entry.name = name;
+            entry.world = world;
+            entry.x = x;
+            entry.y = y;
+            entry.z = z;
+            return entry;
+        }
+    }
+
+    // Frame classes
+
+    /**
+     * A keyframe ({@code key} true) replaces the client's state with {@code add}.
+     * A delta frame adds or re-places the players in {@code add}, moves players
+     * by the flat [id, dx, dy, dz, ...] groups in {@code d} and drops the ids in
+     * {@code rm}. Coordinates are in 1/{@code scale} blocks.
+     */
+    public static class PositionFrame {
+        public String type;
+        public long seq;
+        public Boolean key;
+        public long t;
+        public Integer scale;
+        public List<PlayerEntry> add;
+        public int[] d;
+        public int[] rm;
+    }
+
+    public static class PlayerEntry {
+        public int id;
+        public String uuid;
+        public String name;
+        public String world;
+        public int x;
+        public int y;
+        public int z;
+    }
+}